@@ -0,0 +1,101 @@
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row adjacency of an undirected weighted graph. Every
+ * edge of the source {@link EdgeList} is stored in both directions.
+ */
+public final class AdjacencyGraph {
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    public AdjacencyGraph(int[] offsets, int[] targets, int[] weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public static AdjacencyGraph fromEdges(EdgeList edgeList) {
+        int vertices = edgeList.vertexCount();
+        int edges = edgeList.edgeCount();
+        int[] offsets = new int[vertices + 1];
+
+        for (int e = 0; e < edges; e++) {
+            offsets[edgeList.source(e) + 1]++;
+            offsets[edgeList.destination(e) + 1]++;
+        }
+        for (int v = 0; v < vertices; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] targets = new int[offsets[vertices]];
+        int[] weights = new int[offsets[vertices]];
+        int[] next = Arrays.copyOf(offsets, vertices);
+
+        for (int e = 0; e < edges; e++) {
+            int u = edgeList.source(e);
+            int v = edgeList.destination(e);
+            int w = edgeList.weight(e);
+            targets[next[u]] = v;
+            weights[next[u]++] = w;
+            targets[next[v]] = u;
+            weights[next[v]++] = w;
+        }
+
+        return new AdjacencyGraph(offsets, targets, weights);
+    }
+
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    public int degree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    public int firstArc(int vertex) {
+        return offsets[vertex];
+    }
+
+    public int endArc(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    public int arcTarget(int arc) {
+        return targets[arc];
+    }
+
+    public int arcWeight(int arc) {
+        return weights[arc];
+    }
+
+    /**
+     * Single-source Dijkstra; unreachable vertices are left at
+     * {@link DistanceOracle#INF}.
+     */
+    public int[] distancesFrom(int source) {
+        int[] distance = new int[vertexCount()];
+        Arrays.fill(distance, DistanceOracle.INF);
+        distance[source] = 0;
+
+        MinHeap heap = new MinHeap();
+        heap.push(0, source);
+        while (!heap.isEmpty()) {
+            int d = heap.peekKey();
+            int u = heap.peekVertex();
+            heap.pop();
+            if (d > distance[u]) {
+                continue;
+            }
+            for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+                int candidate = d + weights[arc];
+                int v = targets[arc];
+                if (candidate < distance[v]) {
+                    distance[v] = candidate;
+                    heap.push(candidate, v);
+                }
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The long-lived graph behind the GUI. Every edit is appended to the
+ * {@link EditLog}, applied to the current {@link GraphModel} and announced
+ * to the registered {@link GraphListener}s, so views and the distance
+ * engine update in place instead of the window being rebuilt.
+ *
+ * <p>Edits and listeners run on the event dispatch thread. Snapshots from
+ * {@link #graph()} share the edge arrays, which only ever grow past the
+ * snapshot's edge count, so a snapshot's edge list can be handed to a
+ * background build. Its IDs and names are not copied: every snapshot
+ * holds the same {@link VertexIds} and {@link NameIndex}, which
+ * {@link #addCity} and {@link #renameCity} update in place, so they stay
+ * on the event dispatch thread.
+ */
+public final class AppModel {
+    private final EditLog editLog;
+    private final List<GraphListener> listeners = new ArrayList<>();
+    private GraphModel graph;
+    private int[] sources;
+    private int[] weights;
+    private int[] destinations;
+    private int edges;
+    private AdjacencyGraph adjacency;
+
+    public AppModel(GraphModel initial, EditLog editLog) {
+        this.editLog = editLog;
+        load(initial);
+    }
+
+    public GraphModel graph() {
+        return graph;
+    }
+
+    /** CSR adjacency of the current graph, rebuilt on first use after an edit. */
+    public AdjacencyGraph adjacency() {
+        if (adjacency == null) {
+            adjacency = AdjacencyGraph.fromEdges(graph.edges());
+        }
+        return adjacency;
+    }
+
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Adds a city numbered after the largest existing ID and returns its index. */
+    public int addCity(String name) throws IOException {
+        VertexIds ids = graph.ids();
+        long id = ids.nextId();
+        editLog.addCity(id, name);
+        int city = ids.add(id);
+        graph.names().set(city, name);
+        publish(ids.size());
+        for (GraphListener listener : listeners) {
+            listener.cityAdded(city);
+        }
+        return city;
+    }
+
+    public void renameCity(int city, String name) throws IOException {
+        editLog.renameCity(graph.ids().externalId(city), name);
+        graph.names().set(city, name);
+        for (GraphListener listener : listeners) {
+            listener.cityRenamed(city);
+        }
+    }
+
+    /** Adds an undirected path and returns its edge index. */
+    public int addPath(int source, int weight, int destination) throws IOException {
+        editLog.addPath(graph.ids().externalId(source), weight, graph.ids().externalId(destination));
+        if (edges == sources.length) {
+            sources = Arrays.copyOf(sources, edges * 2);
+            weights = Arrays.copyOf(weights, edges * 2);
+            destinations = Arrays.copyOf(destinations, edges * 2);
+        }
+        sources[edges] = source;
+        weights[edges] = weight;
+        destinations[edges] = destination;
+        int edge = edges++;
+        publish(graph.vertexCount());
+        for (GraphListener listener : listeners) {
+            listener.pathAdded(edge);
+        }
+        return edge;
+    }
+
+    /** Deletes a city and its paths; the remaining cities are renumbered. */
+    public void deleteCity(int city) throws IOException {
+        editLog.deleteCity(graph.ids().externalId(city));
+        load(EditLog.withoutCity(graph, city));
+        for (GraphListener listener : listeners) {
+            listener.graphReplaced();
+        }
+    }
+
+    private void load(GraphModel model) {
+        EdgeList edgeList = model.edges();
+        edges = edgeList.edgeCount();
+        sources = new int[Math.max(16, edges)];
+        weights = new int[sources.length];
+        destinations = new int[sources.length];
+        for (int e = 0; e < edges; e++) {
+            sources[e] = edgeList.source(e);
+            weights[e] = edgeList.weight(e);
+            destinations[e] = edgeList.destination(e);
+        }
+        graph = model;
+        adjacency = null;
+    }
+
+    private void publish(int vertices) {
+        graph = new GraphModel(graph.ids(), graph.names(),
+                new EdgeList(vertices, sources, weights, destinations, edges));
+        adjacency = null;
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Versioned binary graph file.
+ *
+ * <pre>
+ * int   magic "FLYG", int version, int vertex count, int edge count
+ * per edge, in input order:
+ *       zigzag varint source delta, zigzag varint destination delta,
+ *       both from the previous edge, then zigzag varint weight
+ * per vertex, in index order:
+ *       varint UTF-8 length, name bytes
+ * per vertex, in index order:
+ *       zigzag varlong delta of the external city ID
+ * </pre>
+ *
+ * Only version 3 is read; files from older versions are rejected and
+ * must be converted again. Counts, lengths and indices are checked
+ * against the file, and a damaged file is reported as an
+ * {@link IOException}. Run
+ * {@code java BinaryGraphFormat [input.txt] [vertex_names.txt] [graph.bin]}
+ * to convert the text files.
+ */
+public final class BinaryGraphFormat {
+    private static final int MAGIC = 0x464c5947;
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 16;
+
+    private BinaryGraphFormat() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String inputFile = args.length > 0 ? args[0] : "input.txt";
+        String namesFile = args.length > 1 ? args[1] : "vertex_names.txt";
+        String outputFile = args.length > 2 ? args[2] : "graph.bin";
+
+        GraphModel model = GraphModel.load(namesFile, inputFile);
+        write(outputFile, model);
+        System.out.println("Wrote " + outputFile);
+    }
+
+    /** Writes {@code model} with its edges in their current order, so loading gives back the same edge list. */
+    public static void write(String fileName, GraphModel model) throws IOException {
+        EdgeList edgeList = model.edges();
+        int vertices = model.vertexCount();
+        int edges = edgeList.edgeCount();
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(vertices);
+            out.writeInt(edges);
+
+            int previousSource = 0;
+            int previousDestination = 0;
+            for (int e = 0; e < edges; e++) {
+                writeVarint(out, zigzag(edgeList.source(e) - previousSource));
+                writeVarint(out, zigzag(edgeList.destination(e) - previousDestination));
+                writeVarint(out, zigzag(edgeList.weight(e)));
+                previousSource = edgeList.source(e);
+                previousDestination = edgeList.destination(e);
+            }
+
+            for (int v = 0; v < vertices; v++) {
+                byte[] bytes = model.names().name(v).getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+            }
+
+            long previousId = 0;
+            for (int v = 0; v < vertices; v++) {
+                long delta = model.ids().externalId(v) - previousId;
+                writeVarlong(out, (delta << 1) ^ (delta >> 63));
+                previousId = model.ids().externalId(v);
+            }
+        }
+    }
+
+    /** Loads the edge list and names for the GUI. */
+    public static GraphModel load(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(bytes, fileName);
+            int vertices = readCount(bytes, fileName);
+            int edges = readCount(bytes, fileName);
+
+            int[] sources = new int[edges];
+            int[] weights = new int[edges];
+            int[] destinations = new int[edges];
+            int[] e = { 0 };
+            readEdges(bytes, vertices, edges, fileName, (source, destination, weight) -> {
+                sources[e[0]] = source;
+                destinations[e[0]] = destination;
+                weights[e[0]++] = weight;
+            });
+
+            NameIndex names = new NameIndex(vertices);
+            byte[] name = new byte[64];
+            for (int v = 0; v < vertices; v++) {
+                int length = readVarint(bytes, fileName);
+                if (length < 0 || length > bytes.remaining()) {
+                    throw corrupt(fileName, "name of vertex " + v + " runs past the end");
+                }
+                if (length > name.length) {
+                    name = new byte[Math.max(length, name.length * 2)];
+                }
+                bytes.get(name, 0, length);
+                names.set(v, name, 0, length);
+            }
+
+            VertexIds ids = new VertexIds(vertices);
+            long id = 0;
+            for (int v = 0; v < vertices; v++) {
+                long delta = readVarlong(bytes, fileName);
+                id += (delta >>> 1) ^ -(delta & 1);
+                if (ids.add(id) != v) {
+                    throw corrupt(fileName, "city ID " + id + " appears twice");
+                }
+            }
+            return new GraphModel(ids, names, new EdgeList(vertices, sources, weights, destinations));
+        } catch (BufferUnderflowException e) {
+            throw corrupt(fileName, "unexpected end of file");
+        }
+    }
+
+    /**
+     * {@link DistanceCache#graphHash} of the file's edge list, computed from
+     * the edge section alone without building the list or the names.
+     */
+    public static byte[] graphHash(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(bytes, fileName);
+            int vertices = readCount(bytes, fileName);
+            int edges = readCount(bytes, fileName);
+            DistanceCache.GraphDigest digest = new DistanceCache.GraphDigest(vertices);
+            readEdges(bytes, vertices, edges, fileName,
+                    (source, destination, weight) -> digest.edge(source, weight, destination));
+            return digest.finish();
+        } catch (BufferUnderflowException e) {
+            throw corrupt(fileName, "unexpected end of file");
+        }
+    }
+
+    /**
+     * Decodes the mapped edge section straight into the CSR arrays of an
+     * {@link AdjacencyGraph}, skipping the intermediate edge list and the
+     * name dictionary entirely.
+     */
+    public static AdjacencyGraph loadAdjacency(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(bytes, fileName);
+            int vertices = readCount(bytes, fileName);
+            int edges = readCount(bytes, fileName);
+            int edgesStart = bytes.position();
+
+            // First pass: degrees in both directions.
+            int[] offsets = new int[vertices + 1];
+            readEdges(bytes, vertices, edges, fileName, (source, destination, weight) -> {
+                offsets[source + 1]++;
+                offsets[destination + 1]++;
+            });
+            for (int v = 0; v < vertices; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+
+            // Second pass: fill both arcs of every edge.
+            int[] targets = new int[2 * edges];
+            int[] weights = new int[2 * edges];
+            int[] next = Arrays.copyOf(offsets, vertices);
+            bytes.position(edgesStart);
+            readEdges(bytes, vertices, edges, fileName, (source, destination, weight) -> {
+                targets[next[source]] = destination;
+                weights[next[source]++] = weight;
+                targets[next[destination]] = source;
+                weights[next[destination]++] = weight;
+            });
+            return new AdjacencyGraph(offsets, targets, weights);
+        } catch (BufferUnderflowException e) {
+            throw corrupt(fileName, "unexpected end of file");
+        }
+    }
+
+    private interface EdgeVisitor {
+        void edge(int source, int destination, int weight);
+    }
+
+    /** Decodes the edge section, checking every endpoint. */
+    private static void readEdges(ByteBuffer bytes, int vertices, int edges, String fileName,
+            EdgeVisitor visitor) throws IOException {
+        int source = 0;
+        int destination = 0;
+        for (int e = 0; e < edges; e++) {
+            source += unzigzag(readVarint(bytes, fileName));
+            destination += unzigzag(readVarint(bytes, fileName));
+            checkVertex(source, vertices, fileName);
+            checkVertex(destination, vertices, fileName);
+            visitor.edge(source, destination, unzigzag(readVarint(bytes, fileName)));
+        }
+    }
+
+    private static void checkHeader(ByteBuffer bytes, String fileName) throws IOException {
+        if (bytes.limit() < HEADER_BYTES || bytes.getInt() != MAGIC) {
+            throw new IOException("Not a binary graph file: " + fileName);
+        }
+        int version = bytes.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary graph version " + version + " in " + fileName
+                    + "; convert the text files again");
+        }
+    }
+
+    /** A vertex or edge count, which cannot exceed the bytes left since each takes at least one. */
+    private static int readCount(ByteBuffer bytes, String fileName) throws IOException {
+        int count = bytes.getInt();
+        if (count < 0 || count > bytes.remaining()) {
+            throw corrupt(fileName, "count " + count + " does not fit the file");
+        }
+        return count;
+    }
+
+    private static void checkVertex(int vertex, int vertices, String fileName) throws IOException {
+        if (vertex < 0 || vertex >= vertices) {
+            throw corrupt(fileName, "edge endpoint " + vertex + " is not a vertex");
+        }
+    }
+
+    private static IOException corrupt(String fileName, String problem) {
+        return new IOException("Corrupt binary graph file " + fileName + ": " + problem);
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeVarlong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /** Reads at most ten bytes, rejecting any that would shift bits past 64. */
+    private static long readVarlong(ByteBuffer bytes, String fileName) throws IOException {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = bytes.get();
+            if (shift == 63 && (b & 0xfe) != 0) {
+                throw corrupt(fileName, "overlong varint");
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /** Reads at most five bytes, rejecting any that would shift bits past 32. */
+    private static int readVarint(ByteBuffer bytes, String fileName) throws IOException {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = bytes.get();
+            if (shift == 28 && (b & 0xf0) != 0) {
+                throw corrupt(fileName, "overlong varint");
+            }
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
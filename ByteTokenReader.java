@@ -0,0 +1,269 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Whitespace-separated token reader over a {@link FileChannel}. Integers
+ * are parsed straight from the bytes of a reused 1 MiB buffer, so reading
+ * numbers allocates nothing; only {@link #restOfLine()} builds a String.
+ * An optional delimiter such as {@code ','} separates tokens like a blank.
+ */
+final class ByteTokenReader implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final byte[] bytes = buffer.array();
+    private final String fileName;
+    private final byte delimiter;
+    private byte[] text = new byte[64];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private long end = Long.MAX_VALUE;
+    private long read;
+
+    ByteTokenReader(String fileName) throws IOException {
+        this(fileName, ' ');
+    }
+
+    ByteTokenReader(String fileName, char delimiter) throws IOException {
+        this.fileName = fileName;
+        this.delimiter = (byte) delimiter;
+        this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+    }
+
+    /** Stops reading at byte {@code end} of the file, as if the file ended there. */
+    void limit(long end) {
+        this.end = end;
+    }
+
+    /** Skips whitespace and reports whether another token follows. */
+    boolean hasNext() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            byte b = bytes[position];
+            if (!isSeparator(b)) {
+                return true;
+            }
+            if (b == '\n') {
+                line++;
+            }
+            position++;
+        }
+    }
+
+    int nextInt() throws IOException {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw malformed("Number out of int range");
+        }
+        return (int) value;
+    }
+
+    long nextLong() throws IOException {
+        if (!hasNext()) {
+            throw malformed("Unexpected end of file");
+        }
+        boolean negative = false;
+        if (bytes[position] == '-' || bytes[position] == '+') {
+            negative = bytes[position] == '-';
+            position++;
+        }
+
+        // Accumulated as a negative number so that Long.MIN_VALUE fits.
+        long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        int digits = 0;
+        while (position < limit || fill()) {
+            int digit = bytes[position] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value < (bound + digit) / 10) {
+                throw malformed("Number out of long range");
+            }
+            value = value * 10 - digit;
+            position++;
+            digits++;
+        }
+        if (digits == 0 || (position < limit && !isSeparator(bytes[position]))) {
+            throw malformed("Expected a number");
+        }
+        return negative ? value : -value;
+    }
+
+    /** Parses a decimal such as {@code -1.5e+03} without building a String. */
+    double nextDouble() throws IOException {
+        if (!hasNext()) {
+            throw malformed("Unexpected end of file");
+        }
+        boolean negative = false;
+        if (bytes[position] == '-' || bytes[position] == '+') {
+            negative = bytes[position] == '-';
+            position++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+        while (position < limit || fill()) {
+            byte b = bytes[position];
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9') {
+                if (mantissa < Long.MAX_VALUE / 10 - 9) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    exponent -= fraction ? 1 : 0;
+                } else {
+                    exponent += fraction ? 0 : 1;
+                }
+                digits++;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits > 0 && (position < limit || fill()) && (bytes[position] == 'e' || bytes[position] == 'E')) {
+            position++;
+            exponent += (int) nextLong();
+        }
+        if (digits == 0 || (position < limit && !isSeparator(bytes[position]))) {
+            throw malformed("Expected a number");
+        }
+        double value = mantissa * Math.pow(10, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips blanks and delimiters up to the next line break and reports
+     * whether the current line has no further tokens.
+     */
+    boolean atLineEnd() throws IOException {
+        while (position < limit || fill()) {
+            byte b = bytes[position];
+            if (b == '\n') {
+                return true;
+            }
+            if (!isSeparator(b)) {
+                return false;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    /** Moves past the current token without parsing it. */
+    void skipToken() throws IOException {
+        if (hasNext()) {
+            while ((position < limit || fill()) && !isSeparator(bytes[position])) {
+                position++;
+            }
+        }
+    }
+
+    /** The first byte of the next token; call after {@link #hasNext()}. */
+    byte peek() {
+        return bytes[position];
+    }
+
+    /**
+     * Returns the remainder of the current line with surrounding blanks
+     * trimmed, and moves past its line break.
+     */
+    String restOfLine() throws IOException {
+        int length = readRestOfLine();
+        return new String(text, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Like {@link #restOfLine()}, but leaves the UTF-8 bytes at the start of
+     * {@link #text()} and returns their count instead of building a String.
+     */
+    int readRestOfLine() throws IOException {
+        while ((position < limit || fill()) && (bytes[position] == ' ' || bytes[position] == '\t')) {
+            position++;
+        }
+
+        int length = 0;
+        while (position < limit || fill()) {
+            byte b = bytes[position++];
+            if (b == '\n') {
+                line++;
+                break;
+            }
+            if (length == text.length) {
+                text = Arrays.copyOf(text, length * 2);
+            }
+            text[length++] = b;
+        }
+        while (length > 0 && isBlank(text[length - 1])) {
+            length--;
+        }
+        return length;
+    }
+
+    /** The buffer filled by {@link #readRestOfLine()}; reused between calls. */
+    byte[] text() {
+        return text;
+    }
+
+    /** Moves past the next line break. */
+    void skipLine() throws IOException {
+        while (position < limit || fill()) {
+            if (bytes[position++] == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    int line() {
+        return line;
+    }
+
+    String fileName() {
+        return fileName;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** ASCII control characters and space; UTF-8 continuation bytes are negative. */
+    private static boolean isBlank(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private boolean isSeparator(byte b) {
+        return isBlank(b) || b == delimiter;
+    }
+
+    private IOException malformed(String message) {
+        return new IOException(message + " at " + fileName + ":" + line);
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        buffer.limit((int) Math.min(BUFFER_BYTES, end - this.read));
+        int read = -1;
+        if (buffer.hasRemaining()) {
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+        this.read += limit;
+        return read > 0;
+    }
+}
@@ -0,0 +1,189 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Type-ahead city field. Each keystroke looks the text up in a shared
+ * {@link PrefixIndex} and shows the matching range in a popup list whose
+ * model reads names only for the rows it paints, so the picker opens
+ * instantly at 100k cities instead of filling a combo box with every name.
+ * Arrow keys move through the matches and Enter or a click picks one;
+ * typing a name exactly also selects that city.
+ */
+public final class CityPicker extends JTextField {
+    private static final int VISIBLE_MATCHES = 10;
+
+    private final AppModel app;
+    private final PrefixIndex index;
+    private final MatchList matches = new MatchList();
+    private final JList<String> list = new JList<>(matches);
+    private final JPopupMenu popup = new JPopupMenu();
+    private int selectedCity = -1;
+    private boolean updating;
+
+    public CityPicker(AppModel app, PrefixIndex index) {
+        super(15);
+        this.app = app;
+        this.index = index;
+
+        list.setPrototypeCellValue("Wwwwwwwwwwwwwwwwwwww");
+        list.setVisibleRowCount(VISIBLE_MATCHES);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                choose(list.locationToIndex(e.getPoint()));
+            }
+        });
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textChanged();
+            }
+        });
+        bind("DOWN", () -> move(1));
+        bind("UP", () -> move(-1));
+        bind("ESCAPE", () -> popup.setVisible(false));
+        bind("ENTER", () -> {
+            if (popup.isVisible() && matches.getSize() > 0) {
+                choose(Math.max(0, list.getSelectedIndex()));
+            } else {
+                postActionEvent();
+            }
+        });
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    /** The picked city, or -1 when the text names no city. */
+    public int selectedCity() {
+        return selectedCity;
+    }
+
+    public void select(int city) {
+        updating = true;
+        setText(city >= 0 ? app.graph().names().name(city) : "");
+        updating = false;
+        selectedCity = city;
+        hideMatches();
+    }
+
+    /** Shows the new name if the picked city was renamed. */
+    public void cityRenamed(int city) {
+        hideMatches();
+        if (city == selectedCity) {
+            select(city);
+        }
+    }
+
+    /** Re-resolves the text after cities were added or renumbered. */
+    public void reload() {
+        hideMatches();
+        selectedCity = app.graph().names().indexOf(getText());
+    }
+
+    private void bind(String key, Runnable action) {
+        getInputMap().put(KeyStroke.getKeyStroke(key), key);
+        getActionMap().put(key, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    private void textChanged() {
+        if (updating) {
+            return;
+        }
+        selectedCity = app.graph().names().indexOf(getText());
+        matches.show(index.find(getText()));
+        if (matches.getSize() == 0 || !isShowing()) {
+            popup.setVisible(false);
+        } else if (!popup.isVisible()) {
+            popup.setPopupSize(Math.max(getWidth(), popup.getPreferredSize().width),
+                    popup.getPreferredSize().height);
+            popup.show(this, 0, getHeight());
+        }
+    }
+
+    private void move(int step) {
+        if (!popup.isVisible()) {
+            textChanged();
+            return;
+        }
+        int position = Math.max(0, Math.min(matches.getSize() - 1, list.getSelectedIndex() + step));
+        list.setSelectedIndex(position);
+        list.ensureIndexIsVisible(position);
+    }
+
+    private void choose(int position) {
+        if (position >= 0 && position < matches.getSize()) {
+            select(index.cityAt(matches.from + position));
+        }
+    }
+
+    private void hideMatches() {
+        popup.setVisible(false);
+        matches.show(new PrefixIndex.Matches(0, 0));
+    }
+
+    /** The current range of the prefix index, read lazily by the list. */
+    private final class MatchList extends AbstractListModel<String> {
+        private int from;
+        private int to;
+
+        void show(PrefixIndex.Matches range) {
+            int removed = to - from;
+            from = to = 0;
+            if (removed > 0) {
+                fireIntervalRemoved(this, 0, removed - 1);
+            }
+            from = range.from;
+            to = range.to;
+            if (to > from) {
+                fireIntervalAdded(this, 0, to - from - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return to - from;
+        }
+
+        @Override
+        public String getElementAt(int position) {
+            return app.graph().names().name(index.cityAt(from + position));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Cities tab rows read straight from the {@link AppModel}: the external
+ * ID, the name from the {@link NameIndex} and a Rename button cell. Names
+ * are only turned into Strings for the rows the table actually paints.
+ */
+public final class CityTableModel extends AbstractTableModel implements RowComparator {
+    private static final String[] COLUMNS = { "ID", "City Name", "Rename" };
+
+    private final AppModel app;
+
+    public CityTableModel(AppModel app) {
+        this.app = app;
+    }
+
+    @Override
+    public int getRowCount() {
+        return app.graph().vertexCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Long.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column >= 2;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case 0:
+                return app.graph().ids().externalId(row);
+            case 1:
+                return app.graph().names().name(row);
+            default:
+                return "Rename";
+        }
+    }
+
+    @Override
+    public int compareRows(int column, int firstRow, int secondRow) {
+        if (column == 0) {
+            return Long.compare(app.graph().ids().externalId(firstRow), app.graph().ids().externalId(secondRow));
+        }
+        return app.graph().names().compare(firstRow, secondRow);
+    }
+
+    @Override
+    public boolean isSortable(int column) {
+        return column < 2;
+    }
+}
@@ -0,0 +1,601 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over an undirected road graph. Vertices are
+ * contracted in edge-difference order, adding shortcuts where no witness
+ * path exists; queries then run a bidirectional Dijkstra that only climbs
+ * towards higher-ranked vertices, so neither preprocessing nor queries need
+ * a V x V matrix.
+ *
+ * Run {@code java ContractionHierarchy [input.txt] [vertex_names.txt] [hierarchy.ch]}
+ * to build the hierarchy offline. The file records the
+ * {@link DistanceCache#graphHash} of the graph it was built from, and
+ * {@link #load} refuses it for any other graph.
+ */
+public final class ContractionHierarchy implements DistanceOracle {
+    private static final int MAGIC = 0x46434831;
+    private static final int VERSION = 2;
+    private static final int HASH_BYTES = 32;
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+    private static final int CONTRACT_SETTLE_LIMIT = 1000;
+
+    private final int[] rank;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final int[] upWeights;
+    private final int[] upMiddles;
+
+    private final int[] forwardDistance;
+    private final int[] backwardDistance;
+    private final int[] forwardParent;
+    private final int[] backwardParent;
+    private final MinHeap forwardHeap = new MinHeap();
+    private final MinHeap backwardHeap = new MinHeap();
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+    private ContractionHierarchy(int[] rank, int[] upOffsets, int[] upTargets, int[] upWeights, int[] upMiddles) {
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+
+        int vertices = rank.length;
+        forwardDistance = new int[vertices];
+        backwardDistance = new int[vertices];
+        forwardParent = new int[vertices];
+        backwardParent = new int[vertices];
+        Arrays.fill(forwardDistance, INF);
+        Arrays.fill(backwardDistance, INF);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String inputFile = args.length > 0 ? args[0] : "input.txt";
+        String namesFile = args.length > 1 ? args[1] : "vertex_names.txt";
+        String outputFile = args.length > 2 ? args[2] : "hierarchy.ch";
+
+        AdjacencyGraph graph;
+        byte[] graphHash;
+        if (inputFile.endsWith(".bin")) {
+            graph = BinaryGraphFormat.loadAdjacency(inputFile);
+            graphHash = BinaryGraphFormat.graphHash(inputFile);
+        } else {
+            EdgeList edgeList = GraphModel.load(namesFile, inputFile).edges();
+            graph = AdjacencyGraph.fromEdges(edgeList);
+            graphHash = DistanceCache.graphHash(edgeList);
+        }
+        long start = System.nanoTime();
+        ContractionHierarchy hierarchy = build(graph);
+        System.out.println("Contraction time: " + (System.nanoTime() - start) + "ns, "
+                + hierarchy.upTargets.length + " upward arcs");
+        hierarchy.save(outputFile, graphHash);
+    }
+
+    /** Contracts every vertex; throws if the calling thread is interrupted meanwhile. */
+    public static ContractionHierarchy build(AdjacencyGraph graph) throws InterruptedException {
+        return new Builder(graph).contract();
+    }
+
+    @Override
+    public int vertexCount() {
+        return rank.length;
+    }
+
+    @Override
+    public synchronized int distance(int source, int destination) {
+        int meeting = search(source, destination);
+        int best = meeting < 0 ? INF : forwardDistance[meeting] + backwardDistance[meeting];
+        reset();
+        return best;
+    }
+
+    @Override
+    public synchronized int[] path(int source, int destination) {
+        int meeting = search(source, destination);
+        if (meeting < 0) {
+            reset();
+            return new int[0];
+        }
+
+        int[] hops = new int[16];
+        int count = 0;
+        for (int v = meeting; v != -1; v = forwardParent[v]) {
+            if (count == hops.length) {
+                hops = Arrays.copyOf(hops, count * 2);
+            }
+            hops[count++] = v;
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swap = hops[i];
+            hops[i] = hops[j];
+            hops[j] = swap;
+        }
+        for (int v = backwardParent[meeting]; v != -1; v = backwardParent[v]) {
+            if (count == hops.length) {
+                hops = Arrays.copyOf(hops, count * 2);
+            }
+            hops[count++] = v;
+        }
+        reset();
+
+        IntBuffer unpacked = new IntBuffer();
+        unpacked.add(hops[0]);
+        for (int i = 1; i < count; i++) {
+            unpack(hops[i - 1], hops[i], unpacked);
+        }
+        return unpacked.toArray();
+    }
+
+    public void save(String fileName, byte[] graphHash) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(graphHash);
+            out.writeInt(rank.length);
+            out.writeInt(upTargets.length);
+            writeInts(out, rank);
+            writeInts(out, upOffsets);
+            writeInts(out, upTargets);
+            writeInts(out, upWeights);
+            writeInts(out, upMiddles);
+        }
+    }
+
+    /**
+     * Loads a hierarchy saved for the graph with {@code vertices} vertices
+     * and hash {@code graphHash}; throws if the file was built for another.
+     */
+    public static ContractionHierarchy load(String fileName, int vertices, byte[] graphHash) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a contraction hierarchy file: " + fileName);
+            }
+            byte[] storedHash = new byte[HASH_BYTES];
+            in.readFully(storedHash);
+            if (in.readInt() != vertices || !Arrays.equals(storedHash, graphHash)) {
+                throw new IOException(fileName + " was built for a different graph");
+            }
+            int arcs = in.readInt();
+            // Each arc is three ints: target, weight and middle vertex.
+            if (arcs < 0 || arcs > Files.size(Paths.get(fileName)) / 12) {
+                throw new IOException("Corrupt contraction hierarchy file: " + fileName);
+            }
+            int[] rank = readInts(in, vertices);
+            int[] upOffsets = readInts(in, vertices + 1);
+            int[] upTargets = readInts(in, arcs);
+            int[] upWeights = readInts(in, arcs);
+            int[] upMiddles = readInts(in, arcs);
+            return new ContractionHierarchy(rank, upOffsets, upTargets, upWeights, upMiddles);
+        }
+    }
+
+    /**
+     * Bidirectional upward search. Returns the vertex where the best forward
+     * and backward distances meet, or -1 when the two are disconnected; the
+     * search state stays populated until {@link #reset()}.
+     */
+    private int search(int source, int destination) {
+        forwardHeap.clear();
+        backwardHeap.clear();
+        settle(forwardDistance, forwardParent, source);
+        settle(backwardDistance, backwardParent, destination);
+        forwardHeap.push(0, source);
+        backwardHeap.push(0, destination);
+
+        int best = INF;
+        int meeting = -1;
+        while (!forwardHeap.isEmpty() || !backwardHeap.isEmpty()) {
+            boolean forward = backwardHeap.isEmpty()
+                    || (!forwardHeap.isEmpty() && forwardHeap.peekKey() <= backwardHeap.peekKey());
+            MinHeap heap = forward ? forwardHeap : backwardHeap;
+            int[] distance = forward ? forwardDistance : backwardDistance;
+            int[] parent = forward ? forwardParent : backwardParent;
+            int[] opposite = forward ? backwardDistance : forwardDistance;
+
+            int d = heap.peekKey();
+            int u = heap.peekVertex();
+            if (d >= best) {
+                heap.clear();
+                continue;
+            }
+            heap.pop();
+            if (d > distance[u]) {
+                continue;
+            }
+            if (opposite[u] != INF && d + opposite[u] < best) {
+                best = d + opposite[u];
+                meeting = u;
+            }
+            if (stalled(u, d, distance)) {
+                continue;
+            }
+            for (int arc = upOffsets[u]; arc < upOffsets[u + 1]; arc++) {
+                int v = upTargets[arc];
+                int candidate = d + upWeights[arc];
+                if (candidate < distance[v]) {
+                    if (distance[v] == INF && (forward ? backwardDistance[v] : forwardDistance[v]) == INF) {
+                        track(v);
+                    }
+                    distance[v] = candidate;
+                    parent[v] = u;
+                    heap.push(candidate, v);
+                }
+            }
+        }
+        return meeting;
+    }
+
+    /**
+     * Stall-on-demand: u cannot lie on a shortest up-down path if a
+     * higher-ranked neighbour already reaches it more cheaply.
+     */
+    private boolean stalled(int u, int d, int[] distance) {
+        for (int arc = upOffsets[u]; arc < upOffsets[u + 1]; arc++) {
+            int v = upTargets[arc];
+            if (distance[v] != INF && distance[v] + upWeights[arc] < d) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void settle(int[] distance, int[] parent, int vertex) {
+        if (forwardDistance[vertex] == INF && backwardDistance[vertex] == INF) {
+            track(vertex);
+        }
+        distance[vertex] = 0;
+        parent[vertex] = -1;
+    }
+
+    private void track(int vertex) {
+        if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+        }
+        touched[touchedCount++] = vertex;
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            forwardDistance[touched[i]] = INF;
+            backwardDistance[touched[i]] = INF;
+        }
+        touchedCount = 0;
+    }
+
+    /** Appends the original vertices between a and b (excluding a) to out. */
+    private void unpack(int a, int b, IntBuffer out) {
+        IntBuffer stack = new IntBuffer();
+        stack.add(b);
+        stack.add(a);
+        while (stack.size() > 0) {
+            int from = stack.pop();
+            int to = stack.pop();
+            int middle = upMiddles[arcBetween(from, to)];
+            if (middle < 0) {
+                out.add(to);
+            } else {
+                stack.add(to);
+                stack.add(middle);
+                stack.add(middle);
+                stack.add(from);
+            }
+        }
+    }
+
+    private int arcBetween(int a, int b) {
+        int low = rank[a] < rank[b] ? a : b;
+        int high = low == a ? b : a;
+        int best = -1;
+        for (int arc = upOffsets[low]; arc < upOffsets[low + 1]; arc++) {
+            if (upTargets[arc] == high && (best < 0 || upWeights[arc] < upWeights[best])) {
+                best = arc;
+            }
+        }
+        return best;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Contraction state: a mutable adjacency list per vertex that keeps
+     * original edges and shortcuts side by side, each shortcut remembering
+     * the vertex it bypasses.
+     */
+    private static final class Builder {
+        private final int vertices;
+        private final int[][] neighbours;
+        private final int[][] weights;
+        private final int[][] middles;
+        private final int[] degree;
+        private final boolean[] contracted;
+        private final int[] deletedNeighbours;
+        private final int[] priority;
+        private final int[] rank;
+
+        private final int[] witnessDistance;
+        private final int[] witnessTouched;
+        private int witnessTouchedCount;
+        private final MinHeap witnessHeap = new MinHeap();
+
+        Builder(AdjacencyGraph graph) {
+            vertices = graph.vertexCount();
+            neighbours = new int[vertices][];
+            weights = new int[vertices][];
+            middles = new int[vertices][];
+            degree = new int[vertices];
+            contracted = new boolean[vertices];
+            deletedNeighbours = new int[vertices];
+            priority = new int[vertices];
+            rank = new int[vertices];
+            witnessDistance = new int[vertices];
+            witnessTouched = new int[vertices];
+            Arrays.fill(witnessDistance, INF);
+
+            for (int v = 0; v < vertices; v++) {
+                int capacity = Math.max(4, graph.degree(v));
+                neighbours[v] = new int[capacity];
+                weights[v] = new int[capacity];
+                middles[v] = new int[capacity];
+            }
+            for (int u = 0; u < vertices; u++) {
+                for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                    int v = graph.arcTarget(arc);
+                    if (u < v) {
+                        addEdge(u, v, graph.arcWeight(arc), -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy contract() throws InterruptedException {
+            MinHeap queue = new MinHeap();
+            for (int v = 0; v < vertices; v++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Contraction cancelled while ordering vertex " + v);
+                }
+                priority[v] = computePriority(v);
+                queue.push(priority[v], v);
+            }
+
+            int[] upOffsets = new int[vertices + 1];
+            int[] upTargets = new int[16];
+            int[] upWeights = new int[16];
+            int[] upMiddles = new int[16];
+            int[] start = new int[vertices];
+            int arcs = 0;
+            int contractedCount = 0;
+
+            while (!queue.isEmpty()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Contraction cancelled after " + contractedCount + " vertices");
+                }
+                int key = queue.peekKey();
+                int v = queue.peekVertex();
+                queue.pop();
+                if (contracted[v] || key != priority[v]) {
+                    continue;
+                }
+                int updated = computePriority(v);
+                if (!queue.isEmpty() && updated > queue.peekKey()) {
+                    priority[v] = updated;
+                    queue.push(updated, v);
+                    continue;
+                }
+
+                shortcut(v, true);
+                contracted[v] = true;
+                rank[v] = contractedCount++;
+
+                // Every arc still attached to v leads to a vertex contracted
+                // later, so it becomes one of v's upward arcs and leaves the
+                // active graph.
+                start[v] = arcs;
+                if (arcs + degree[v] > upTargets.length) {
+                    int capacity = Math.max(upTargets.length * 2, arcs + degree[v]);
+                    upTargets = Arrays.copyOf(upTargets, capacity);
+                    upWeights = Arrays.copyOf(upWeights, capacity);
+                    upMiddles = Arrays.copyOf(upMiddles, capacity);
+                }
+                for (int i = 0; i < degree[v]; i++) {
+                    int u = neighbours[v][i];
+                    upTargets[arcs] = u;
+                    upWeights[arcs] = weights[v][i];
+                    upMiddles[arcs] = middles[v][i];
+                    arcs++;
+                    removeArc(u, v);
+                    deletedNeighbours[u]++;
+                    priority[u] = computePriority(u);
+                    queue.push(priority[u], u);
+                }
+                upOffsets[v + 1] = degree[v];
+                degree[v] = 0;
+                neighbours[v] = null;
+                weights[v] = null;
+                middles[v] = null;
+            }
+
+            // Lay the recorded arcs out in vertex order for the query graph.
+            int[] targets = new int[arcs];
+            int[] arcWeights = new int[arcs];
+            int[] arcMiddles = new int[arcs];
+            for (int v = 0; v < vertices; v++) {
+                int count = upOffsets[v + 1];
+                upOffsets[v + 1] = upOffsets[v] + count;
+                System.arraycopy(upTargets, start[v], targets, upOffsets[v], count);
+                System.arraycopy(upWeights, start[v], arcWeights, upOffsets[v], count);
+                System.arraycopy(upMiddles, start[v], arcMiddles, upOffsets[v], count);
+            }
+            return new ContractionHierarchy(rank, upOffsets, targets, arcWeights, arcMiddles);
+        }
+
+        /** Edge difference plus a uniformity term for already removed neighbours. */
+        private int computePriority(int v) {
+            int shortcuts = shortcut(v, false);
+            return Math.max(0, shortcuts - degree[v] + deletedNeighbours[v] + vertices);
+        }
+
+        /**
+         * Counts, and when apply is set inserts, the shortcuts needed to
+         * preserve distances between v's remaining neighbours without v.
+         * Priority estimates use a cheaper witness search than the actual
+         * contraction; a missed witness only costs a redundant shortcut.
+         */
+        private int shortcut(int v, boolean apply) {
+            int count = 0;
+            for (int i = 0; i < degree[v]; i++) {
+                int u = neighbours[v][i];
+                int viaU = weights[v][i];
+                int limit = 0;
+                for (int j = i + 1; j < degree[v]; j++) {
+                    limit = Math.max(limit, viaU + weights[v][j]);
+                }
+                if (limit == 0) {
+                    continue;
+                }
+
+                witnessSearch(u, v, limit, apply ? CONTRACT_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+                for (int j = i + 1; j < degree[v]; j++) {
+                    int w = neighbours[v][j];
+                    int via = viaU + weights[v][j];
+                    if (witnessDistance[w] > via) {
+                        count++;
+                        if (apply) {
+                            addEdge(u, w, via, v);
+                        }
+                    }
+                }
+                clearWitness();
+            }
+            return count;
+        }
+
+        private void witnessSearch(int source, int avoid, int limit, int settleLimit) {
+            witnessHeap.clear();
+            witnessDistance[source] = 0;
+            witnessTouched[witnessTouchedCount++] = source;
+            witnessHeap.push(0, source);
+            int settled = 0;
+
+            while (!witnessHeap.isEmpty() && settled < settleLimit) {
+                int d = witnessHeap.peekKey();
+                int u = witnessHeap.peekVertex();
+                witnessHeap.pop();
+                if (d > witnessDistance[u]) {
+                    continue;
+                }
+                if (d > limit) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < degree[u]; i++) {
+                    int x = neighbours[u][i];
+                    if (x == avoid) {
+                        continue;
+                    }
+                    int candidate = d + weights[u][i];
+                    if (candidate < witnessDistance[x]) {
+                        if (witnessDistance[x] == INF) {
+                            witnessTouched[witnessTouchedCount++] = x;
+                        }
+                        witnessDistance[x] = candidate;
+                        witnessHeap.push(candidate, x);
+                    }
+                }
+            }
+        }
+
+        private void clearWitness() {
+            for (int i = 0; i < witnessTouchedCount; i++) {
+                witnessDistance[witnessTouched[i]] = INF;
+            }
+            witnessTouchedCount = 0;
+        }
+
+        private void addEdge(int u, int v, int weight, int middle) {
+            addArc(u, v, weight, middle);
+            addArc(v, u, weight, middle);
+        }
+
+        private void removeArc(int from, int to) {
+            for (int i = 0; i < degree[from]; i++) {
+                if (neighbours[from][i] == to) {
+                    int last = --degree[from];
+                    neighbours[from][i] = neighbours[from][last];
+                    weights[from][i] = weights[from][last];
+                    middles[from][i] = middles[from][last];
+                    return;
+                }
+            }
+        }
+
+        private void addArc(int from, int to, int weight, int middle) {
+            for (int i = 0; i < degree[from]; i++) {
+                if (neighbours[from][i] == to) {
+                    if (weight < weights[from][i]) {
+                        weights[from][i] = weight;
+                        middles[from][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (degree[from] == neighbours[from].length) {
+                int capacity = degree[from] * 2;
+                neighbours[from] = Arrays.copyOf(neighbours[from], capacity);
+                weights[from] = Arrays.copyOf(weights[from], capacity);
+                middles[from] = Arrays.copyOf(middles[from], capacity);
+            }
+            neighbours[from][degree[from]] = to;
+            weights[from][degree[from]] = weight;
+            middles[from][degree[from]] = middle;
+            degree[from]++;
+        }
+    }
+}
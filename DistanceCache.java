@@ -0,0 +1,156 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * On-disk cache of all-pairs results keyed by a hash of the parsed graph.
+ * Each entry is a packed lower-triangular distance file that
+ * {@link MappedMatrixOracle} maps directly. Entries unused for longer than
+ * the maximum age are dropped, and the least recently used ones go first
+ * once the directory exceeds its size cap.
+ */
+public final class DistanceCache {
+    private static final int MAGIC = 0x46444331;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".dist";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+
+    public DistanceCache(String directory, long maxBytes, long maxAgeMillis) {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /** {@link #graphHash} as hex, naming the cache entry for a graph. */
+    public static String graphKey(EdgeList edgeList) {
+        StringBuilder key = new StringBuilder();
+        for (byte b : graphHash(edgeList)) {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.toString();
+    }
+
+    /** SHA-256 of the vertex count and every edge in file order. */
+    public static byte[] graphHash(EdgeList edgeList) {
+        GraphDigest digest = new GraphDigest(edgeList.vertexCount());
+        for (int e = 0; e < edgeList.edgeCount(); e++) {
+            digest.edge(edgeList.source(e), edgeList.weight(e), edgeList.destination(e));
+        }
+        return digest.finish();
+    }
+
+    /**
+     * Incremental form of {@link #graphHash}, for readers that see the edges
+     * one at a time without building an {@link EdgeList}.
+     */
+    static final class GraphDigest {
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(12 * 1024);
+
+        GraphDigest(int vertices) {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+            buffer.putInt(vertices);
+        }
+
+        void edge(int source, int weight, int destination) {
+            if (buffer.remaining() < 12) {
+                digest.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            buffer.putInt(source).putInt(weight).putInt(destination);
+        }
+
+        byte[] finish() {
+            digest.update(buffer.array(), 0, buffer.position());
+            return digest.digest();
+        }
+    }
+
+    /**
+     * Maps the cached result for key, or returns null on a miss. A hit
+     * refreshes the entry's modification time, which drives eviction.
+     */
+    public MappedMatrixOracle lookup(String key, int vertices) {
+        Path file = directory.resolve(key + SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MappedMatrixOracle.HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < MappedMatrixOracle.HEADER_BYTES || header.getInt() != MAGIC
+                    || header.getInt() != VERSION || header.getInt() != vertices) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error occurred while reading the distance cache: " + e.getMessage());
+            return null;
+        }
+
+        try {
+            MappedMatrixOracle oracle = MappedMatrixOracle.map(file, vertices);
+            file.toFile().setLastModified(System.currentTimeMillis());
+            return oracle;
+        } catch (IOException e) {
+            System.err.println("Error occurred while mapping the distance cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void store(String key, int[][] shortests) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(key + SUFFIX);
+        Path temporary = directory.resolve(key + SUFFIX + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(shortests.length).putInt(0);
+            FloydCheckpoint.writeLowerTriangle(channel, buffer, shortests);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        evict();
+    }
+
+    /** Drops expired entries, then the least recently used beyond the size cap. */
+    public void evict() {
+        File[] entries = directory.toFile().listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (entries == null) {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+
+        long now = System.currentTimeMillis();
+        long total = 0;
+        for (File entry : entries) {
+            long length = entry.length();
+            if (total + length > maxBytes || now - entry.lastModified() > maxAgeMillis) {
+                if (!entry.delete()) {
+                    System.err.println("Could not evict distance cache entry " + entry);
+                }
+            } else {
+                total += length;
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.util.function.Supplier;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+
+/**
+ * Scrollable grid of shortest distances. Only the cells inside the clip are
+ * painted, and each one is read from the serving {@link DistanceOracle} as
+ * it is painted, so any backend (heap, mapped, lazy Dijkstra, hub labels)
+ * can be browsed at V = 50,000 without building a row or a table column.
+ * City names are shown in row and column headers that are just as lazy.
+ */
+public final class DistanceMatrixPanel extends JComponent implements Scrollable {
+    private static final Font CELL_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font HEADER_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final int CELL_WIDTH = 72;
+    private static final int ROW_HEADER_WIDTH = 120;
+    private static final Color GRID_COLOR = new Color(0xDDDDDD);
+    private static final Color HEADER_COLOR = new Color(0xEEEEEE);
+
+    private final AppModel app;
+    private final Supplier<DistanceOracle> oracle;
+    private final int cellHeight;
+    private final JComponent rowHeader = new Header(true);
+    private final JComponent columnHeader = new Header(false);
+
+    /** {@code oracle} supplies the oracle serving right now, or null while none is ready. */
+    public DistanceMatrixPanel(AppModel app, Supplier<DistanceOracle> oracle) {
+        this.app = app;
+        this.oracle = oracle;
+        this.cellHeight = getFontMetrics(CELL_FONT).getHeight() + 4;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setToolTipText("");
+    }
+
+    /** Wraps the grid in a scroll pane with the name headers attached. */
+    public JScrollPane createScrollPane() {
+        JScrollPane scrollPane = new JScrollPane(this);
+        scrollPane.setRowHeaderView(rowHeader);
+        scrollPane.setColumnHeaderView(columnHeader);
+        return scrollPane;
+    }
+
+    /** Call after cities were added or removed, or a new engine was published. */
+    public void refresh() {
+        revalidate();
+        rowHeader.revalidate();
+        columnHeader.revalidate();
+        repaint();
+        rowHeader.repaint();
+        columnHeader.repaint();
+    }
+
+    private int vertices() {
+        return app.graph().vertexCount();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(extent(vertices(), CELL_WIDTH), extent(vertices(), cellHeight));
+    }
+
+    private static int extent(int cells, int size) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) cells * size);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        DistanceOracle serving = oracle.get();
+        int vertices = vertices();
+        if (serving == null || serving.vertexCount() != vertices) {
+            g.setColor(Color.GRAY);
+            g.setFont(HEADER_FONT);
+            g.drawString("Computing shortest distances...", clip.x + 8, clip.y + cellHeight);
+            return;
+        }
+
+        int firstRow = clip.y / cellHeight;
+        int lastRow = Math.min(vertices - 1, (clip.y + clip.height) / cellHeight);
+        int firstColumn = clip.x / CELL_WIDTH;
+        int lastColumn = Math.min(vertices - 1, (clip.x + clip.width) / CELL_WIDTH);
+        FontMetrics metrics = g.getFontMetrics(CELL_FONT);
+        g.setFont(CELL_FONT);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = row * cellHeight;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int x = column * CELL_WIDTH;
+                g.setColor(GRID_COLOR);
+                g.drawRect(x, y, CELL_WIDTH, cellHeight);
+                int distance = serving.distance(row, column);
+                String text = distance == DistanceOracle.INF ? "\u221E" : Integer.toString(distance);
+                g.setColor(Color.BLACK);
+                g.drawString(text, x + CELL_WIDTH - 4 - metrics.stringWidth(text),
+                        y + cellHeight - 2 - metrics.getDescent());
+            }
+        }
+    }
+
+    /** Spells out the hovered cell, since headers truncate long names. */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        DistanceOracle serving = oracle.get();
+        int row = event.getY() / cellHeight;
+        int column = event.getX() / CELL_WIDTH;
+        if (serving == null || row >= serving.vertexCount() || column >= serving.vertexCount()) {
+            return null;
+        }
+        NameIndex names = app.graph().names();
+        int distance = serving.distance(row, column);
+        return names.name(row) + " to " + names.name(column) + ": "
+                + (distance == DistanceOracle.INF ? "no path" : Integer.toString(distance));
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(CELL_WIDTH * 8, cellHeight * 20);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? cellHeight : CELL_WIDTH;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL
+                ? Math.max(cellHeight, visible.height - cellHeight)
+                : Math.max(CELL_WIDTH, visible.width - CELL_WIDTH);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /** City names along one edge of the grid, painted only where visible. */
+    private final class Header extends JComponent {
+        private final boolean rows;
+
+        Header(boolean rows) {
+            this.rows = rows;
+            setOpaque(true);
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            return rows ? new Dimension(ROW_HEADER_WIDTH, extent(vertices(), cellHeight))
+                    : new Dimension(extent(vertices(), CELL_WIDTH), cellHeight);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            g.setColor(HEADER_COLOR);
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            int size = rows ? cellHeight : CELL_WIDTH;
+            int from = rows ? clip.y : clip.x;
+            int to = rows ? clip.y + clip.height : clip.x + clip.width;
+            int last = Math.min(vertices() - 1, to / size);
+            NameIndex names = app.graph().names();
+            FontMetrics metrics = g.getFontMetrics(HEADER_FONT);
+            g.setFont(HEADER_FONT);
+
+            for (int city = from / size; city <= last; city++) {
+                int x = rows ? 0 : city * CELL_WIDTH;
+                int y = rows ? city * cellHeight : 0;
+                int width = rows ? ROW_HEADER_WIDTH : CELL_WIDTH;
+                g.setColor(GRID_COLOR);
+                g.drawRect(x, y, width, cellHeight);
+                g.setColor(Color.BLACK);
+                g.drawString(clipText(names.name(city), metrics, width - 8), x + 4,
+                        y + cellHeight - 2 - metrics.getDescent());
+            }
+        }
+    }
+
+    private static String clipText(String text, FontMetrics metrics, int width) {
+        if (metrics.stringWidth(text) <= width) {
+            return text;
+        }
+        int end = text.length();
+        while (end > 0 && metrics.stringWidth(text.substring(0, end) + "\u2026") > width) {
+            end--;
+        }
+        return text.substring(0, end) + "\u2026";
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Shortest-distance lookup over 0-based vertex indices. Unreachable pairs
+ * answer {@link #INF}, matching the sentinel used by the {@code shortests}
+ * matrix in the GUI.
+ */
+public interface DistanceOracle {
+    int INF = Integer.MAX_VALUE / 2;
+
+    int vertexCount();
+
+    int distance(int source, int destination);
+
+    /**
+     * Worst-case ratio between an answer and the exact distance; exact
+     * engines report 1.
+     */
+    default int stretch() {
+        return 1;
+    }
+
+    /**
+     * Batch lookup: answers {@code distance(sources[i], destinations[i])}
+     * for every i.
+     */
+    default int[] distances(int[] sources, int[] destinations) {
+        int[] result = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            result[i] = distance(sources[i], destinations[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Distances from source to every vertex. Engines that keep whole rows
+     * return them without copying, so callers must not modify the array.
+     */
+    default int[] distancesFrom(int source) {
+        int[] row = new int[vertexCount()];
+        for (int v = 0; v < row.length; v++) {
+            row[v] = distance(source, v);
+        }
+        return row;
+    }
+
+    /**
+     * Vertices on a shortest path from source to destination, both ends
+     * included, or an empty array when there is no path. Engines that keep
+     * only distances return {@code null}.
+     */
+    default int[] path(int source, int destination) {
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of single-source distance rows. Rows are plain
+ * {@code int[]} charged at their array footprint against the byte budget.
+ */
+public final class DistanceRowCache {
+    private static final long ROW_OVERHEAD = 16;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, int[]> rows = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public DistanceRowCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized int[] get(int source) {
+        int[] row = rows.get(source);
+        if (row == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return row;
+    }
+
+    public synchronized void put(int source, int[] row) {
+        int[] previous = rows.put(source, row);
+        if (previous != null) {
+            bytes -= footprint(previous);
+        }
+        bytes += footprint(row);
+
+        Iterator<int[]> eldest = rows.values().iterator();
+        while (bytes > maxBytes && rows.size() > 1) {
+            int[] evicted = eldest.next();
+            eldest.remove();
+            bytes -= footprint(evicted);
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops exactly the cached rows whose distances can change when the
+     * edge (u, v) goes from oldWeight to newWeight. Pass
+     * {@link DistanceOracle#INF} as oldWeight for a new edge and as
+     * newWeight for a removed one.
+     */
+    public synchronized void edgeChanged(int u, int v, int oldWeight, int newWeight) {
+        Iterator<Map.Entry<Integer, int[]>> entries = rows.entrySet().iterator();
+        while (entries.hasNext()) {
+            int[] row = entries.next().getValue();
+            if (affected(row, u, v, oldWeight, newWeight)) {
+                entries.remove();
+                bytes -= footprint(row);
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += rows.size();
+        rows.clear();
+        bytes = 0;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DistanceRowCache[rows=" + rows.size() + ", bytes=" + bytes + ", hits=" + hits + ", misses="
+                + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+
+    /**
+     * A cheaper edge matters only if it shortens the route to one of its
+     * ends; a dearer or removed edge matters only if it was tight, i.e. lay
+     * on the shortest-path tree of the row.
+     */
+    private static boolean affected(int[] row, int u, int v, int oldWeight, int newWeight) {
+        // Rows cached before u or v was added end short; the city is unreachable from them.
+        int du = u < row.length ? row[u] : DistanceOracle.INF;
+        int dv = v < row.length ? row[v] : DistanceOracle.INF;
+        if (newWeight < oldWeight) {
+            return (du != DistanceOracle.INF && du + newWeight < dv)
+                    || (dv != DistanceOracle.INF && dv + newWeight < du);
+        }
+        if (newWeight > oldWeight && oldWeight != DistanceOracle.INF) {
+            return (du != DistanceOracle.INF && du + oldWeight == dv)
+                    || (dv != DistanceOracle.INF && dv + oldWeight == du);
+        }
+        return false;
+    }
+
+    private static long footprint(int[] row) {
+        return ROW_OVERHEAD + 4L * row.length;
+    }
+}
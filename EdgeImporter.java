@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Streaming importers for edge lists in DIMACS {@code .gr}, MatrixMarket
+ * {@code .mtx} and {@code .csv} form, read with {@link ByteTokenReader}.
+ * External vertex IDs are remapped to dense indices in order of first
+ * appearance, self-loops are dropped, and parallel edges between the same
+ * pair of vertices collapse to the minimum weight. Every city is named
+ * after its external ID.
+ *
+ * <p>Run {@code java EdgeImporter <file> [graph.bin]} to convert a file into
+ * the {@link BinaryGraphFormat} the GUI loads.
+ */
+public final class EdgeImporter {
+    private EdgeImporter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java EdgeImporter <file.gr|file.mtx|file.csv> [graph.bin]");
+            return;
+        }
+        String outputFile = args.length > 1 ? args[1] : "graph.bin";
+
+        long start = System.nanoTime();
+        GraphModel model = read(args[0]);
+        System.out.println("Imported " + model.vertexCount() + " cities and " + model.edges().edgeCount()
+                + " paths in " + (System.nanoTime() - start) + "ns");
+        BinaryGraphFormat.write(outputFile, model);
+        System.out.println("Wrote " + outputFile);
+    }
+
+    /** Picks the importer from the file extension. */
+    public static GraphModel read(String fileName) throws IOException {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gr")) {
+            return readDimacs(fileName);
+        }
+        if (lower.endsWith(".mtx")) {
+            return readMatrixMarket(fileName);
+        }
+        if (lower.endsWith(".csv")) {
+            return readCsv(fileName);
+        }
+        throw new IOException("Unknown edge list format: " + fileName);
+    }
+
+    /** {@code c} comments, one {@code p sp n m} problem line and {@code a u v w} arcs. */
+    public static GraphModel readDimacs(String fileName) throws IOException {
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            Builder builder = new Builder(1024);
+            while (reader.hasNext()) {
+                byte kind = reader.peek();
+                if (kind == 'c') {
+                    reader.skipLine();
+                } else if (kind == 'p') {
+                    reader.skipToken();
+                    reader.skipToken();
+                    long vertices = reader.nextLong();
+                    long arcs = reader.nextLong();
+                    builder = new Builder((int) Math.min(Integer.MAX_VALUE / 4, Math.max(vertices, arcs / 2)));
+                } else if (kind == 'a') {
+                    reader.skipToken();
+                    long source = reader.nextLong();
+                    long destination = reader.nextLong();
+                    builder.add(source, destination, reader.nextInt());
+                } else {
+                    throw malformed(reader, "Unexpected DIMACS line");
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Coordinate MatrixMarket files: the {@code %%MatrixMarket} banner,
+     * {@code %} comments, a {@code rows cols entries} line, then
+     * {@code i j [value]} entries. Pattern matrices get weight 1 and real
+     * values are rounded to the nearest integer.
+     */
+    public static GraphModel readMatrixMarket(String fileName) throws IOException {
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            String banner = reader.hasNext() ? reader.restOfLine().toLowerCase(Locale.ROOT) : "";
+            if (!banner.startsWith("%%matrixmarket") || !banner.contains("coordinate")) {
+                throw new IOException("Not a coordinate MatrixMarket file: " + fileName);
+            }
+            while (reader.hasNext() && reader.peek() == '%') {
+                reader.skipLine();
+            }
+
+            reader.nextLong();
+            reader.nextLong();
+            long entries = reader.nextLong();
+            Builder builder = new Builder((int) Math.min(Integer.MAX_VALUE / 4, entries));
+            while (reader.hasNext()) {
+                long row = reader.nextLong();
+                long column = reader.nextLong();
+                int weight = reader.atLineEnd() ? 1 : roundWeight(reader, reader.nextDouble());
+                builder.add(row, column, weight);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * {@code source,target[,weight]} rows, with an optional header line;
+     * missing weights are 1 and extra columns are ignored.
+     */
+    public static GraphModel readCsv(String fileName) throws IOException {
+        try (ByteTokenReader reader = new ByteTokenReader(fileName, ',')) {
+            if (reader.hasNext() && !isNumberStart(reader.peek())) {
+                reader.skipLine();
+            }
+            Builder builder = new Builder(1024);
+            while (reader.hasNext()) {
+                long source = reader.nextLong();
+                long destination = reader.nextLong();
+                int weight = reader.atLineEnd() ? 1 : roundWeight(reader, reader.nextDouble());
+                if (!reader.atLineEnd()) {
+                    reader.skipLine();
+                }
+                builder.add(source, destination, weight);
+            }
+            return builder.build();
+        }
+    }
+
+    private static boolean isNumberStart(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+';
+    }
+
+    private static int roundWeight(ByteTokenReader reader, double value) throws IOException {
+        long weight = Math.round(value);
+        if (weight < Integer.MIN_VALUE || weight > Integer.MAX_VALUE) {
+            throw malformed(reader, "Weight out of int range");
+        }
+        return (int) weight;
+    }
+
+    private static IOException malformed(ByteTokenReader reader, String message) {
+        return new IOException(message + " at " + reader.fileName() + ":" + reader.line());
+    }
+
+    /** Accumulates remapped, deduplicated edges in primitive arrays. */
+    private static final class Builder {
+        private final VertexIds ids;
+        private final LongIntMap edgeIndex;
+        private int[] sources;
+        private int[] weights;
+        private int[] destinations;
+        private int edges;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            ids = new VertexIds(capacity);
+            edgeIndex = new LongIntMap(capacity);
+            sources = new int[capacity];
+            weights = new int[capacity];
+            destinations = new int[capacity];
+        }
+
+        void add(long sourceId, long destinationId, int weight) {
+            int source = ids.add(sourceId);
+            int destination = ids.add(destinationId);
+            if (source == destination) {
+                return;
+            }
+
+            long key = ((long) Math.min(source, destination) << 32) | Math.max(source, destination);
+            int existing = edgeIndex.putIfAbsent(key, edges);
+            if (existing != LongIntMap.MISSING) {
+                weights[existing] = Math.min(weights[existing], weight);
+                return;
+            }
+            if (edges == sources.length) {
+                sources = Arrays.copyOf(sources, edges * 2);
+                weights = Arrays.copyOf(weights, edges * 2);
+                destinations = Arrays.copyOf(destinations, edges * 2);
+            }
+            sources[edges] = source;
+            weights[edges] = weight;
+            destinations[edges] = destination;
+            edges++;
+        }
+
+        GraphModel build() {
+            NameIndex names = new NameIndex(ids.size());
+            for (int v = 0; v < ids.size(); v++) {
+                names.set(v, Long.toString(ids.externalId(v)));
+            }
+            return new GraphModel(ids, names, new EdgeList(ids.size(), Arrays.copyOf(sources, edges),
+                    Arrays.copyOf(weights, edges), Arrays.copyOf(destinations, edges)));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Undirected weighted edge list held in primitive arrays, with vertices
+ * indexed from 0. {@link GraphLoader} reads it from the
+ * {@code src weight dst} layout of {@code input.txt}, mapping city IDs
+ * through {@link VertexIds}. Only the first {@link #edgeCount()} array
+ * slots are part of the list, so a growing owner can hand out snapshots
+ * that share its arrays.
+ */
+public final class EdgeList {
+    private final int vertices;
+    private final int[] sources;
+    private final int[] weights;
+    private final int[] destinations;
+    private final int edges;
+
+    public EdgeList(int vertices, int[] sources, int[] weights, int[] destinations) {
+        this(vertices, sources, weights, destinations, sources.length);
+    }
+
+    public EdgeList(int vertices, int[] sources, int[] weights, int[] destinations, int edges) {
+        this.vertices = vertices;
+        this.sources = sources;
+        this.weights = weights;
+        this.destinations = destinations;
+        this.edges = edges;
+    }
+
+    public int vertexCount() {
+        return vertices;
+    }
+
+    public int edgeCount() {
+        return edges;
+    }
+
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    public int destination(int edge) {
+        return destinations[edge];
+    }
+}
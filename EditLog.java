@@ -0,0 +1,427 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of edits made on top of {@code vertex_names.txt} and
+ * {@code input.txt}, one text record per line:
+ *
+ * <pre>
+ * A id name      add a city
+ * R id name      rename a city
+ * P src w dst    add a path
+ * D id           delete a city and its paths
+ * </pre>
+ *
+ * Records are written immediately but forced to disk in batches, at most
+ * once per sync interval, so a burst of edits costs one fsync. A record
+ * counts only once its line break is written, so a line torn by a crash is
+ * ignored by {@link #replay} and cut off when the log is reopened. At
+ * startup {@link #recover} finishes an interrupted compaction,
+ * {@link #replay} applies the log to the snapshot loaded from the base
+ * files, and {@link #compact} folds it back into them.
+ */
+public final class EditLog implements Closeable {
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService syncer;
+    private boolean dirty;
+
+    public EditLog(String fileName, long syncMillis) throws IOException {
+        this.file = Paths.get(fileName);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        long complete = completeLength(file);
+        if (complete < channel.size()) {
+            System.err.println("Dropping a torn record at the end of " + fileName);
+            channel.truncate(complete);
+            channel.force(true);
+        }
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "edit-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                System.err.println("Error occurred while syncing the edit log: " + e.getMessage());
+            }
+        }, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void addCity(long id, String name) throws IOException {
+        append("A " + id + " " + singleLine(name));
+    }
+
+    public void renameCity(long id, String name) throws IOException {
+        append("R " + id + " " + singleLine(name));
+    }
+
+    public void addPath(long sourceId, int weight, long destinationId) throws IOException {
+        append("P " + sourceId + " " + weight + " " + destinationId);
+    }
+
+    public void deleteCity(long id) throws IOException {
+        append("D " + id);
+    }
+
+    /** Forces appended records to disk if any were written since the last sync. */
+    public synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Rewrites the base files from {@code model}, which must be the base
+     * with this log applied, and empties the log. Both files are first
+     * written to temporary siblings and forced; a marker file then commits
+     * the compaction before anything visible changes, so a crash at any
+     * point leaves either the old base and the full log or a marker that
+     * {@link #recover} completes.
+     */
+    public synchronized void compact(GraphModel model, String namesFile, String edgesFile) throws IOException {
+        sync();
+        VertexIds ids = model.ids();
+        writeForced(temporary(Paths.get(namesFile)), writer -> {
+            for (int v = 0; v < model.vertexCount(); v++) {
+                writer.write(ids.externalId(v) + " " + model.names().name(v));
+                writer.newLine();
+            }
+        });
+        EdgeList edgeList = model.edges();
+        writeForced(temporary(Paths.get(edgesFile)), writer -> {
+            for (int e = 0; e < edgeList.edgeCount(); e++) {
+                writer.write(ids.externalId(edgeList.source(e)) + " " + edgeList.weight(e) + " "
+                        + ids.externalId(edgeList.destination(e)));
+                writer.newLine();
+            }
+        });
+        writeForced(marker(file), writer -> {
+        });
+        finishCompaction(file, namesFile, edgesFile);
+        dirty = false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        syncer.shutdown();
+        sync();
+        channel.close();
+    }
+
+    private synchronized void append(String record) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        dirty = true;
+    }
+
+    private static String singleLine(String name) {
+        return name.replace('\n', ' ').replace('\r', ' ').trim();
+    }
+
+    /**
+     * Completes a compaction interrupted by a crash, or discards its
+     * temporary files if it crashed before committing. Call before loading
+     * the base files.
+     */
+    public static void recover(String fileName, String namesFile, String edgesFile) throws IOException {
+        Path log = Paths.get(fileName);
+        if (Files.exists(marker(log))) {
+            System.err.println("Finishing an interrupted compaction of " + fileName);
+            finishCompaction(log, namesFile, edgesFile);
+        } else {
+            Files.deleteIfExists(temporary(Paths.get(namesFile)));
+            Files.deleteIfExists(temporary(Paths.get(edgesFile)));
+        }
+    }
+
+    /**
+     * Applies the records in {@code fileName} to {@code base} and returns
+     * the resulting graph; {@code base} itself is returned when there is no
+     * log. The base's IDs and names are extended in place. Records that
+     * refer to unknown cities are skipped and a final line without its line
+     * break is ignored. Replay stops at a malformed record; it and every
+     * record after it are moved to {@code fileName.rejected} and cut from
+     * the log, so that new edits are not appended behind records that the
+     * next replay would never reach.
+     */
+    public static GraphModel replay(String fileName, GraphModel base) throws IOException {
+        if (!Files.exists(Paths.get(fileName)) || Files.size(Paths.get(fileName)) == 0) {
+            return base;
+        }
+
+        VertexIds ids = base.ids();
+        NameIndex names = base.names();
+        EdgeList baseEdges = base.edges();
+        int edges = baseEdges.edgeCount();
+        int[] sources = new int[Math.max(16, edges)];
+        int[] weights = new int[sources.length];
+        int[] destinations = new int[sources.length];
+        for (int e = 0; e < edges; e++) {
+            sources[e] = baseEdges.source(e);
+            weights[e] = baseEdges.weight(e);
+            destinations[e] = baseEdges.destination(e);
+        }
+        boolean[] deleted = new boolean[Math.max(16, ids.size())];
+        int applied = 0;
+        int skipped = 0;
+        int badLine = 0;
+
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            reader.limit(completeLength(Paths.get(fileName)));
+            while (reader.hasNext()) {
+                badLine = reader.line();
+                byte kind = reader.peek();
+                reader.skipToken();
+                if (kind == 'A') {
+                    int vertex = ids.add(reader.nextLong());
+                    names.set(vertex, reader.restOfLine());
+                    if (vertex >= deleted.length) {
+                        deleted = Arrays.copyOf(deleted, deleted.length * 2);
+                    }
+                    deleted[vertex] = false;
+                } else if (kind == 'R') {
+                    int vertex = ids.indexOf(reader.nextLong());
+                    String name = reader.restOfLine();
+                    if (vertex < 0 || deleted[vertex]) {
+                        skipped++;
+                        continue;
+                    }
+                    names.set(vertex, name);
+                } else if (kind == 'P') {
+                    int source = ids.indexOf(reader.nextLong());
+                    int weight = reader.nextInt();
+                    int destination = ids.indexOf(reader.nextLong());
+                    if (source < 0 || destination < 0 || deleted[source] || deleted[destination]) {
+                        skipped++;
+                        continue;
+                    }
+                    if (edges == sources.length) {
+                        sources = Arrays.copyOf(sources, edges * 2);
+                        weights = Arrays.copyOf(weights, edges * 2);
+                        destinations = Arrays.copyOf(destinations, edges * 2);
+                    }
+                    sources[edges] = source;
+                    weights[edges] = weight;
+                    destinations[edges] = destination;
+                    edges++;
+                } else if (kind == 'D') {
+                    int vertex = ids.indexOf(reader.nextLong());
+                    if (vertex < 0 || deleted[vertex]) {
+                        skipped++;
+                        continue;
+                    }
+                    deleted[vertex] = true;
+                    int kept = 0;
+                    for (int e = 0; e < edges; e++) {
+                        if (sources[e] != vertex && destinations[e] != vertex) {
+                            sources[kept] = sources[e];
+                            weights[kept] = weights[e];
+                            destinations[kept] = destinations[e];
+                            kept++;
+                        }
+                    }
+                    edges = kept;
+                } else {
+                    throw new IOException("Unknown edit record at " + fileName + ":" + reader.line());
+                }
+                applied++;
+            }
+            badLine = 0;
+        } catch (IOException e) {
+            System.err.println("Error occurred while replaying the edit log, stopping there: " + e.getMessage());
+        }
+        if (badLine > 0) {
+            Path rejected = reject(Paths.get(fileName), badLine);
+            System.err.println("Moved the edits from " + fileName + ":" + badLine + " on to " + rejected
+                    + "; fix them there and append them to the log to apply them");
+        }
+        if (skipped > 0) {
+            System.err.println("Skipped " + skipped + " edits in " + fileName + " that refer to unknown cities");
+        }
+        System.out.println("Replayed " + applied + " edits from " + fileName);
+
+        return withoutDeleted(ids, names, deleted, sources, weights, destinations, edges);
+    }
+
+    /** The graph without {@code city} and its paths, with the rest renumbered densely. */
+    static GraphModel withoutCity(GraphModel model, int city) {
+        EdgeList edgeList = model.edges();
+        int[] sources = new int[edgeList.edgeCount()];
+        int[] weights = new int[sources.length];
+        int[] destinations = new int[sources.length];
+        int edges = 0;
+        for (int e = 0; e < edgeList.edgeCount(); e++) {
+            if (edgeList.source(e) != city && edgeList.destination(e) != city) {
+                sources[edges] = edgeList.source(e);
+                weights[edges] = edgeList.weight(e);
+                destinations[edges] = edgeList.destination(e);
+                edges++;
+            }
+        }
+        boolean[] deleted = new boolean[model.vertexCount()];
+        deleted[city] = true;
+        return withoutDeleted(model.ids(), model.names(), deleted, sources, weights, destinations, edges);
+    }
+
+    /** Renumbers the surviving cities densely and drops the deleted ones. */
+    private static GraphModel withoutDeleted(VertexIds ids, NameIndex names, boolean[] deleted, int[] sources,
+            int[] weights, int[] destinations, int edges) {
+        int vertices = ids.size();
+        int[] renumbered = new int[vertices];
+        VertexIds keptIds = ids;
+        NameIndex keptNames = names;
+        boolean anyDeleted = false;
+        for (int v = 0; v < vertices; v++) {
+            anyDeleted |= deleted[v];
+        }
+
+        if (anyDeleted) {
+            keptIds = new VertexIds(vertices);
+            keptNames = new NameIndex(vertices);
+            for (int v = 0; v < vertices; v++) {
+                if (deleted[v]) {
+                    renumbered[v] = -1;
+                } else {
+                    renumbered[v] = keptIds.add(ids.externalId(v));
+                    keptNames.set(renumbered[v], names.name(v));
+                }
+            }
+            for (int e = 0; e < edges; e++) {
+                sources[e] = renumbered[sources[e]];
+                destinations[e] = renumbered[destinations[e]];
+            }
+        }
+        return new GraphModel(keptIds, keptNames, new EdgeList(keptIds.size(), Arrays.copyOf(sources, edges),
+                Arrays.copyOf(weights, edges), Arrays.copyOf(destinations, edges)));
+    }
+
+    /** Moves the committed temporary files into place, empties the log and drops the marker. */
+    private static void finishCompaction(Path log, String namesFile, String edgesFile) throws IOException {
+        for (String baseFile : new String[] { namesFile, edgesFile }) {
+            Path target = Paths.get(baseFile);
+            if (Files.exists(temporary(target))) {
+                Files.move(temporary(target), target, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+        Files.delete(marker(log));
+    }
+
+    /**
+     * Moves the log from the start of {@code line} to its end into a
+     * {@code .rejected} sibling, appending to any earlier rejects, and
+     * truncates the log there.
+     */
+    private static Path reject(Path log, int line) throws IOException {
+        Path rejected = log.resolveSibling(log.getFileName() + ".rejected");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileChannel target = FileChannel.open(rejected, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long start = lineOffset(channel, line);
+            long size = channel.size();
+            for (long copied = 0; copied < size - start;) {
+                copied += channel.transferTo(start + copied, size - start - copied, target);
+            }
+            target.force(true);
+            channel.truncate(start);
+            channel.force(true);
+        }
+        return rejected;
+    }
+
+    /** The byte offset at which 1-based {@code line} starts. */
+    private static long lineOffset(FileChannel channel, int line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long offset = 0;
+        int current = 1;
+        while (current < line) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                return offset;
+            }
+            for (int i = 0; i < read && current < line; i++) {
+                offset++;
+                if (buffer.get(i) == '\n') {
+                    current++;
+                }
+            }
+        }
+        return offset;
+    }
+
+    /** The length of the log up to and including its last line break. */
+    private static long completeLength(Path log) throws IOException {
+        if (!Files.exists(log)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            long end = channel.size();
+            while (end > 0) {
+                long start = Math.max(0, end - buffer.capacity());
+                buffer.clear().limit((int) (end - start));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+            return 0;
+        }
+    }
+
+    private static Path temporary(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    private static Path marker(Path log) {
+        return log.resolveSibling(log.getFileName() + ".compacting");
+    }
+
+    private interface LineWriter {
+        void write(BufferedWriter writer) throws IOException;
+    }
+
+    private static void writeForced(Path path, LineWriter lines) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            lines.write(writer);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+}
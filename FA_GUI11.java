@@ -1,134 +1,131 @@
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.*;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
+import java.io.IOException;
 
 public class FA_GUI11 {
     private static final int INF = Integer.MAX_VALUE / 2;
+    private static final String BINARY_GRAPH_FILE = "graph.bin";
+    private static final String EDIT_LOG_FILE = "edits.log";
+
+    private static final ExecutorService ENGINE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "distance-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
 
     private JFrame frame;
     private JTabbedPane tabbedPane;
     private GraphPanel graphPanel;
+    private DistanceMatrixPanel distancePanel;
     private JPanel selectionPanel;
-    private JComboBox<String> sourceComboBox;
-    private JComboBox<String> destinationComboBox;
+    private PrefixIndex cityIndex;
+    private CityPicker sourcePicker;
+    private CityPicker destinationPicker;
+    private JSpinner nearestCountSpinner;
+    private JTextField radiusField;
     private JTextArea outputTextArea;
     private JTable citiesTable;
     private JTable pathsTable;
-
-    private int[][] graph;
-    private int[][] shortests;
-    int edges;
-    private Map<Integer, String> vertexNames;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private Future<?> engineTask;
+    private int engineGeneration;
+
+    private EditLog editLog;
+    private AppModel app;
+    private GraphModel model;
+    private EdgeList edgeList;
+    private NameIndex names;
+    private ProgressiveOracle oracle;
+    private NearestIndex nearestIndex;
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             try {
                 new FA_GUI11().initialize();
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         });
     }
 
-    private void initialize() throws FileNotFoundException {
+    private void initialize() throws IOException {
         frame = new JFrame("Floyd's Algorithm GUI");
         frame.setSize(700, 600);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (engineTask != null) {
+                    engineTask.cancel(true);
+                }
+            }
+        });
 
         tabbedPane = new JTabbedPane();
 
-        graphPanel = new GraphPanel();
-
         selectionPanel = new JPanel(new BorderLayout());
         selectionPanel.setLayout(new FlowLayout());
 
-        vertexNames = readVertexNames("vertex_names.txt");
+        app = new AppModel(loadModel(), editLog);
+        app.addListener(new ViewUpdater());
+        graphPanel = new GraphPanel(app);
+        app.addListener(graphPanel);
+        refreshSnapshot();
+        long buildStart = System.nanoTime();
 
-        Scanner scanner = new Scanner(new File("input.txt"));
-        edges = countLines("input.txt");
+        cityIndex = new PrefixIndex(app);
 
-        String[] vertexLabels = new String[vertexNames.size()];
-        int vertexIndex = 0;
-
-        for (Map.Entry<Integer, String> entry : vertexNames.entrySet()) {
-            vertexLabels[vertexIndex++] = entry.getValue();
-        }
-
-        int vertices = vertexNames.size();
-        graph = new int[vertices][vertices];
-        shortests = new int[vertices][vertices];
-
-        for (int i = 0; i < vertices; i++) {
-            for (int j = 0; j < i; j++) {
-                graph[i][j] = graph[j][i] = shortests[i][j] = shortests[j][i] = INF;
-            }
-            graph[i][i] = shortests[i][i] = 0;
-        }
-
-        for (int i = 0; i < edges; i++) {
-            int sourceId = scanner.nextInt();
-            int weight = scanner.nextInt();
-            int destinationId = scanner.nextInt();
-
-            int sourceVertex = sourceId - 1;
-            int destinationVertex = destinationId - 1;
-
-            if (sourceVertex >= 0 && sourceVertex < vertices && destinationVertex >= 0
-                    && destinationVertex < vertices) {
-                graph[sourceVertex][destinationVertex] = weight;
-                graph[destinationVertex][sourceVertex] = weight;
-            } else {
-                System.err.println("Invalid vertex indices in input file");
-            }
-        }
-
-        sourceComboBox = new JComboBox<>(vertexLabels);
+        sourcePicker = new CityPicker(app, cityIndex);
+        sourcePicker.select(names.size() > 0 ? 0 : -1);
         selectionPanel.add(new JLabel("Source Vertex:"));
-        selectionPanel.add(sourceComboBox);
+        selectionPanel.add(sourcePicker);
 
-        destinationComboBox = new JComboBox<>(vertexLabels);
+        destinationPicker = new CityPicker(app, cityIndex);
+        destinationPicker.select(names.size() > 0 ? 0 : -1);
         selectionPanel.add(new JLabel("Destination Vertex:"));
-        selectionPanel.add(destinationComboBox);
+        selectionPanel.add(destinationPicker);
 
         JButton calculateButton = new JButton("Calculate Shortest Distance");
         calculateButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                int sourceVertex = sourceComboBox.getSelectedIndex();
-                int destinationVertex = destinationComboBox.getSelectedIndex();
+                int sourceVertex = sourcePicker.selectedCity();
+                int destinationVertex = destinationPicker.selectedCity();
 
                 // Check if both source and destination vertices are valid
                 if (sourceVertex >= 0 && destinationVertex >= 0 &&
-                        sourceVertex < vertexNames.size() && destinationVertex < vertexNames.size()) {
+                        sourceVertex < names.size() && destinationVertex < names.size()) {
 
-                    int shortestDistance = shortests[sourceVertex][destinationVertex];
-                    String sourceName = vertexNames.get(sourceVertex + 1);
-                    String destinationName = vertexNames.get(destinationVertex + 1);
+                    DistanceOracle serving = oracle.current();
+                    int shortestDistance = serving.distance(sourceVertex, destinationVertex);
+                    String sourceName = names.name(sourceVertex);
+                    String destinationName = names.name(destinationVertex);
                     if (shortestDistance == INF) {
                         outputTextArea
-                                .setText("No valid path between " + sourceName + " and " + destinationName + ".");
+                                .setText("No valid path between " + sourceName + " and " + destinationName + "."
+                                        + describeMode(serving));
                     } else {
                         outputTextArea
                                 .setText("Shortest distance between " + sourceName + " and " + destinationName + ": "
-                                        + shortestDistance);
+                                        + shortestDistance + describeStretch(serving)
+                                        + describeRoute(serving, sourceVertex, destinationVertex)
+                                        + describeMode(serving));
                     }
                 } else {
                     outputTextArea.setText("Invalid source or destination vertex selected.");
@@ -138,77 +135,550 @@ public class FA_GUI11 {
 
         selectionPanel.add(calculateButton);
 
+        nearestCountSpinner = new JSpinner(new SpinnerNumberModel(10, 1, Integer.MAX_VALUE, 1));
+        selectionPanel.add(new JLabel("Nearest:"));
+        selectionPanel.add(nearestCountSpinner);
+
+        JButton nearestButton = new JButton("Find Nearest Cities");
+        nearestButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int sourceVertex = sourcePicker.selectedCity();
+                if (sourceVertex < 0) {
+                    outputTextArea.setText("Invalid source vertex selected.");
+                    return;
+                }
+                int count = (Integer) nearestCountSpinner.getValue();
+                outputTextArea.setText(describeNearby("Nearest " + count + " cities to ", sourceVertex,
+                        nearestIndex.nearest(sourceVertex, count)));
+            }
+        });
+        selectionPanel.add(nearestButton);
+
+        radiusField = new JTextField(6);
+        selectionPanel.add(new JLabel("Within distance:"));
+        selectionPanel.add(radiusField);
+
+        JButton radiusButton = new JButton("Find Cities Within");
+        radiusButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int sourceVertex = sourcePicker.selectedCity();
+                if (sourceVertex < 0) {
+                    outputTextArea.setText("Invalid source vertex selected.");
+                    return;
+                }
+                try {
+                    int radius = Integer.parseInt(radiusField.getText().trim());
+                    outputTextArea.setText(describeNearby("Cities within " + radius + " of ", sourceVertex,
+                            nearestIndex.withinRadius(sourceVertex, radius)));
+                } catch (NumberFormatException ex) {
+                    outputTextArea.setText("Invalid distance format. Please enter a valid number.");
+                }
+            }
+        });
+        selectionPanel.add(radiusButton);
+
         outputTextArea = new JTextArea(5, 50);
         outputTextArea.setEditable(false);
         JScrollPane scrollPane = new JScrollPane(outputTextArea);
         selectionPanel.add(scrollPane);
 
-        scanner.close();
-
-        performFloydWarshall();
-
         tabbedPane.addTab("Node Selection", selectionPanel);
         tabbedPane.addTab("Graph", graphPanel);
         addCitiesTab();
         addPathsTab();
-        frame.add(tabbedPane);
+        distancePanel = new DistanceMatrixPanel(app, () -> oracle == null ? null : oracle.current());
+        tabbedPane.addTab("Distances", distancePanel.createScrollPane());
+        frame.add(tabbedPane, BorderLayout.CENTER);
+        frame.add(createStatusPanel(), BorderLayout.SOUTH);
         frame.setVisible(true);
+        System.out.println("Window built in " + (System.nanoTime() - buildStart) + "ns");
+
+        startEngine();
     }
 
-    private void performFloydWarshall() {
-        int vertices = graph.length;
+    private JPanel createStatusPanel() {
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> {
+            if (engineTask != null && engineTask.cancel(true)) {
+                finishEngine("Computation cancelled.");
+            }
+        });
+
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(progressBar, BorderLayout.CENTER);
+        statusPanel.add(cancelButton, BorderLayout.EAST);
+        return statusPanel;
+    }
+
+    /** Re-reads the current graph snapshot after the model changed. */
+    private void refreshSnapshot() {
+        model = app.graph();
+        names = model.names();
+        edgeList = model.edges();
+    }
+
+    private static int[][] adjacencyMatrix(EdgeList edgeList) {
+        int vertices = edgeList.vertexCount();
+        int[][] matrix = new int[vertices][vertices];
 
         for (int i = 0; i < vertices; i++) {
-            for (int j = 0; j < vertices; j++) {
-                shortests[i][j] = graph[i][j];
+            for (int j = 0; j < i; j++) {
+                matrix[i][j] = matrix[j][i] = INF;
             }
+            matrix[i][i] = 0;
         }
 
-        LocalDateTime startTime = LocalDateTime.now();
-        for (int k = 0; k < vertices; k++) {
-            for (int i = 1; i < vertices; i++) {
-                for (int j = 0; j < i; j++) {
-                    if (shortests[i][k] != INF && shortests[k][j] != INF
-                            && shortests[i][k] + shortests[k][j] < shortests[i][j]) {
-                        shortests[i][j] = shortests[i][k] + shortests[k][j];
-                        shortests[j][i] = shortests[i][j];
-                    }
+        for (int i = 0; i < edgeList.edgeCount(); i++) {
+            int sourceVertex = edgeList.source(i);
+            int destinationVertex = edgeList.destination(i);
+            int weight = Math.min(matrix[sourceVertex][destinationVertex], edgeList.weight(i));
+            matrix[sourceVertex][destinationVertex] = weight;
+            matrix[destinationVertex][sourceVertex] = weight;
+        }
+        return matrix;
+    }
+
+    /**
+     * Builds the distance engine for the current snapshot on the background
+     * executor so the window stays responsive, cancelling any build that is
+     * still running for an older snapshot. On the first build the Node
+     * Selection tab is enabled as soon as the edge list is loaded and
+     * answers with on-demand Dijkstra until the engine is published;
+     * {@code floyd.timeoutSeconds} cancels a run that takes too long.
+     */
+    private void startEngine() {
+        startEngine(this::createOracle, true);
+    }
+
+    /** Builds a distance engine from an edge list snapshot. */
+    private interface EngineBuilder {
+        DistanceOracle build(EdgeList snapshot) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Runs {@code builder} on the background executor. With
+     * {@code newFallback} false the current fallback keeps serving, with
+     * its row cache, until the engine is published.
+     */
+    private void startEngine(EngineBuilder builder, boolean newFallback) {
+        if (engineTask != null) {
+            engineTask.cancel(true);
+        }
+        if (oracle == null) {
+            tabbedPane.setEnabledAt(0, false);
+            if (tabbedPane.getSelectedIndex() == 0) {
+                tabbedPane.setSelectedIndex(1);
+            }
+        }
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Computing shortest distances...");
+        cancelButton.setEnabled(true);
+
+        int generation = ++engineGeneration;
+        EdgeList snapshot = edgeList;
+        Future<?> task = ENGINE_EXECUTOR.submit(() -> {
+            try {
+                if (newFallback) {
+                    long cacheBytes = Long.getLong("floyd.rowCacheMB", 64) << 20;
+                    ProgressiveOracle progressive = new ProgressiveOracle(
+                            new LazyDijkstraOracle(AdjacencyGraph.fromEdges(snapshot), cacheBytes));
+                    SwingUtilities.invokeLater(() -> publishFallback(generation, progressive));
+                }
+
+                DistanceOracle builtOracle = builder.build(snapshot);
+                NearestIndex builtIndex = new NearestIndex(builtOracle);
+                if (builtOracle instanceof MatrixOracle || builtOracle instanceof MappedMatrixOracle) {
+                    builtIndex.buildAll();
                 }
+                SwingUtilities.invokeLater(() -> publishEngine(generation, builtOracle, builtIndex));
+            } catch (InterruptedException e) {
+                System.out.println(e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == engineGeneration) {
+                        finishEngine("Computation failed: " + e.getMessage());
+                    }
+                });
             }
+        });
+        engineTask = task;
+
+        int timeoutSeconds = Integer.getInteger("floyd.timeoutSeconds", 0);
+        if (timeoutSeconds > 0) {
+            Timer timeout = new Timer(timeoutSeconds * 1000, e -> {
+                if (task.cancel(true)) {
+                    finishEngine("Computation timed out after " + timeoutSeconds + "s.");
+                }
+            });
+            timeout.setRepeats(false);
+            timeout.start();
         }
-        LocalDateTime endTime = LocalDateTime.now();
-        Duration duration = Duration.between(startTime, endTime);
-        System.out.println("Time Difference: " + duration.toNanos() + "ns");
     }
 
-    private Map<Integer, String> readVertexNames(String fileName) throws FileNotFoundException {
-        Map<Integer, String> vertexNames = new HashMap<>();
-        Scanner scanner = new Scanner(new File(fileName));
+    private void publishFallback(int generation, ProgressiveOracle progressive) {
+        if (generation != engineGeneration || engineTask.isCancelled()) {
+            return;
+        }
+        oracle = progressive;
+        nearestIndex = new NearestIndex(progressive);
+        distancePanel.refresh();
+        tabbedPane.setEnabledAt(0, true);
+        if (generation == 1) {
+            tabbedPane.setSelectedIndex(0);
+        }
+    }
 
-        while (scanner.hasNext()) {
-            int vertexId = scanner.nextInt();
-            String vertexName = scanner.next();
-            vertexNames.put(vertexId, vertexName);
+    private void publishEngine(int generation, DistanceOracle builtOracle, NearestIndex builtIndex) {
+        if (generation != engineGeneration || engineTask.isCancelled()) {
+            return;
         }
+        oracle.complete(builtOracle);
+        nearestIndex = builtIndex;
+        distancePanel.repaint();
+        finishEngine("Shortest distances ready.");
+    }
 
-        scanner.close();
-        return vertexNames;
+    /**
+     * Hands one edit to the serving oracle. A delta the finished engine
+     * cannot absorb, or an edit made while a build is still running, also
+     * starts a fresh build; until it is published queries are answered by
+     * the updated fallback. A mapped matrix is instead copied to the heap
+     * in the background and {@code matrixDelta} applied to the copy.
+     */
+    private void updateEngine(BooleanSupplier applyDelta, UnaryOperator<MatrixOracle> matrixDelta) {
+        if (oracle == null) {
+            startEngine();
+            return;
+        }
+        boolean building = !engineTask.isDone();
+        DistanceOracle engine = oracle.isComplete() ? oracle.current() : null;
+        boolean absorbed = applyDelta.getAsBoolean();
+        if (building) {
+            startEngine();
+        } else if (engine instanceof MappedMatrixOracle) {
+            startEngine(snapshot -> matrixDelta.apply(MatrixOracle.copyOf(engine)), false);
+        } else if (engine != null && !absorbed) {
+            startEngine();
+        }
+        nearestIndex = new NearestIndex(oracle);
     }
 
-    private void addCitiesTab() throws FileNotFoundException {
-        String[] citiesHeaders = { "ID", "City Name", "Rename" };
-        Object[][] citiesData = readCitiesFromFile("vertex_names.txt");
+    /** Updates every view in place from the {@link AppModel}'s change events. */
+    private class ViewUpdater implements GraphListener {
+        @Override
+        public void cityAdded(int city) {
+            refreshSnapshot();
+            cityIndex.invalidate();
+            sourcePicker.reload();
+            destinationPicker.reload();
+            ((CityTableModel) citiesTable.getModel()).fireTableRowsInserted(city, city);
+            distancePanel.refresh();
+            updateEngine(() -> oracle.vertexAdded(app.adjacency()), MatrixOracle::withVertex);
+        }
 
-        DefaultTableModel citiesTableModel = new DefaultTableModel(citiesData, citiesHeaders) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column >= 2;
+        /**
+         * A rename changes no distance, so only what shows the name is
+         * repainted: the city's row, the paths table and the pickers; the
+         * graph panel redraws its own labels. The engine is untouched. The
+         * paths table reads names as it paints, so it is only re-sorted
+         * when sorted by a city column, and otherwise just repainted.
+         */
+        @Override
+        public void cityRenamed(int city) {
+            ((CityTableModel) citiesTable.getModel()).fireTableRowsUpdated(city, city);
+            RowSorter<?> pathSorter = pathsTable.getRowSorter();
+            List<? extends RowSorter.SortKey> pathOrder = pathSorter.getSortKeys();
+            if (!pathOrder.isEmpty()
+                    && pathsTable.getModel().getColumnClass(pathOrder.get(0).getColumn()) == String.class) {
+                pathSorter.allRowsChanged();
+            }
+            pathsTable.repaint();
+            cityIndex.invalidate();
+            sourcePicker.cityRenamed(city);
+            destinationPicker.cityRenamed(city);
+            distancePanel.refresh();
+        }
+
+        @Override
+        public void pathAdded(int edge) {
+            refreshSnapshot();
+            int source = edgeList.source(edge);
+            int destination = edgeList.destination(edge);
+            int weight = edgeList.weight(edge);
+            ((PathTableModel) pathsTable.getModel()).fireTableRowsInserted(edge, edge);
+            distancePanel.refresh();
+            updateEngine(() -> oracle.edgeAdded(app.adjacency(), source, destination, weight), matrix -> {
+                matrix.edgeAdded(source, destination, weight);
+                return matrix;
+            });
+        }
+
+        @Override
+        public void graphReplaced() {
+            refreshSnapshot();
+            cityIndex.invalidate();
+            sourcePicker.reload();
+            destinationPicker.reload();
+            ((CityTableModel) citiesTable.getModel()).fireTableDataChanged();
+            ((PathTableModel) pathsTable.getModel()).fireTableDataChanged();
+            distancePanel.refresh();
+            oracle = null;
+            nearestIndex = null;
+            startEngine();
+        }
+    }
+
+    private void finishEngine(String message) {
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(progressBar.getMaximum());
+        progressBar.setString(message);
+        cancelButton.setEnabled(false);
+    }
+
+    /** Forwards per-pivot progress to the progress bar at most once per percent. */
+    private ProgressListener pivotProgress() {
+        int[] lastPercent = { -1 };
+        return (done, total) -> {
+            int percent = (int) (100L * done / total);
+            if (percent != lastPercent[0]) {
+                lastPercent[0] = percent;
+                SwingUtilities.invokeLater(() -> {
+                    if (!engineTask.isDone()) {
+                        progressBar.setIndeterminate(false);
+                        progressBar.setMaximum(total);
+                        progressBar.setValue(done);
+                        progressBar.setString("Floyd-Warshall pivot " + done + " of " + total);
+                    }
+                });
             }
         };
+    }
+
+    /**
+     * Picks the distance engine named by the {@code floyd.engine} system
+     * property: {@code floyd} (default) computes the full matrix, {@code ch}
+     * answers from a contraction hierarchy kept in {@code hierarchy.ch},
+     * {@code hub} from 2-hop hub labels kept in {@code labels.hub} and
+     * {@code tz} from a Thorup-Zwick oracle with stretch
+     * {@code 2 * floyd.stretchK - 1}. {@code lazy} runs Dijkstra per source
+     * on demand and caches up to {@code floyd.rowCacheMB} of rows.
+     * {@code auto} keeps the matrix while it fits in
+     * {@code floyd.memoryBudgetMB} and falls back to {@code tz}. Matrix
+     * results are kept in the on-disk {@link DistanceCache} and mapped back
+     * in when the same graph is loaded again.
+     */
+    private DistanceOracle createOracle(EdgeList edgeList) throws IOException, InterruptedException {
+        String engine = System.getProperty("floyd.engine", "floyd");
+
+        if (engine.equals("auto")) {
+            long budget = Long.getLong("floyd.memoryBudgetMB", Runtime.getRuntime().maxMemory() / 2 >> 20) << 20;
+            engine = ThorupZwickOracle.matrixBytes(edgeList.vertexCount()) > budget ? "tz" : "floyd";
+        }
+
+        if (engine.equals("ch")) {
+            return loadHierarchy("hierarchy.ch", edgeList);
+        }
+        if (engine.equals("hub")) {
+            return loadHubLabels("labels.hub", edgeList);
+        }
+
+        if (engine.equals("lazy")) {
+            long cacheBytes = Long.getLong("floyd.rowCacheMB", 64) << 20;
+            return new LazyDijkstraOracle(AdjacencyGraph.fromEdges(edgeList), cacheBytes);
+        }
+        if (engine.equals("tz")) {
+            int k = Integer.getInteger("floyd.stretchK", 2);
+            return ThorupZwickOracle.build(AdjacencyGraph.fromEdges(edgeList), k, 1);
+        }
+
+        DistanceCache cache = new DistanceCache(System.getProperty("floyd.cacheDir", ".floyd-cache"),
+                Long.getLong("floyd.cacheMaxMB", 1024) << 20,
+                TimeUnit.DAYS.toMillis(Long.getLong("floyd.cacheMaxAgeDays", 30)));
+        String cacheKey = DistanceCache.graphKey(edgeList);
+        MappedMatrixOracle cached = cache.lookup(cacheKey, edgeList.vertexCount());
+        if (cached != null) {
+            System.out.println("Loaded shortest distances from the distance cache");
+            return cached;
+        }
+
+        int[][] graph = adjacencyMatrix(edgeList);
+        int[][] shortests;
+        int checkpointEvery = Integer.getInteger("floyd.checkpointEvery", 0);
+        boolean resume = Boolean.getBoolean("floyd.resume");
+        if (checkpointEvery > 0 || resume) {
+            shortests = new FloydWarshallTask(graph, pivotProgress(), "floyd.checkpoint",
+                    DistanceCache.graphHash(edgeList),
+                    checkpointEvery, resume).call();
+        } else {
+            shortests = new FloydWarshallTask(graph, pivotProgress()).call();
+        }
+
+        try {
+            cache.store(cacheKey, shortests);
+        } catch (IOException e) {
+            System.err.println("Error occurred while writing the distance cache: " + e.getMessage());
+        }
+        return new MatrixOracle(shortests);
+    }
+
+    /**
+     * Loads the base snapshot, preferring an up-to-date {@code graph.bin}
+     * over parsing the text files, and replays {@code edits.log} on top,
+     * after finishing any compaction a crash interrupted.
+     * Once the log grows past {@code floyd.compactKB} (default 256) it is
+     * folded into the text files and truncated.
+     */
+    private GraphModel loadModel() throws IOException {
+        EditLog.recover(EDIT_LOG_FILE, "vertex_names.txt", "input.txt");
+        GraphModel base = null;
+        if (isNewerThanBase(BINARY_GRAPH_FILE)) {
+            try {
+                long start = System.nanoTime();
+                base = BinaryGraphFormat.load(BINARY_GRAPH_FILE);
+                System.out.println("Loaded " + BINARY_GRAPH_FILE + " in " + (System.nanoTime() - start) + "ns");
+            } catch (IOException e) {
+                System.err.println("Error occurred while loading the binary graph, reading text: " + e.getMessage());
+            }
+        }
+        if (base == null) {
+            base = GraphModel.load("vertex_names.txt", "input.txt");
+        }
+        GraphModel current = EditLog.replay(EDIT_LOG_FILE, base);
+
+        editLog = new EditLog(EDIT_LOG_FILE, Long.getLong("floyd.logSyncMillis", 200));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                editLog.close();
+            } catch (IOException e) {
+                System.err.println("Error occurred while closing the edit log: " + e.getMessage());
+            }
+        }));
+        if (editLog.size() > Long.getLong("floyd.compactKB", 256) << 10) {
+            try {
+                editLog.compact(current, "vertex_names.txt", "input.txt");
+                System.out.println("Compacted " + EDIT_LOG_FILE + " into the base files");
+            } catch (IOException e) {
+                System.err.println("Error occurred while compacting the edit log: " + e.getMessage());
+            }
+        }
+        return current;
+    }
+
+    private ContractionHierarchy loadHierarchy(String fileName, EdgeList edgeList) throws InterruptedException {
+        byte[] graphHash = DistanceCache.graphHash(edgeList);
+        if (new File(fileName).exists()) {
+            try {
+                return ContractionHierarchy.load(fileName, edgeList.vertexCount(), graphHash);
+            } catch (IOException e) {
+                System.err.println("Error occurred while loading the hierarchy, rebuilding: " + e.getMessage());
+            }
+        }
+
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(AdjacencyGraph.fromEdges(edgeList));
+        try {
+            hierarchy.save(fileName, graphHash);
+        } catch (IOException e) {
+            System.err.println("Error occurred while saving the hierarchy: " + e.getMessage());
+        }
+        return hierarchy;
+    }
+
+    private HubLabels loadHubLabels(String fileName, EdgeList edgeList) throws InterruptedException {
+        byte[] graphHash = DistanceCache.graphHash(edgeList);
+        if (new File(fileName).exists()) {
+            try {
+                return HubLabels.load(fileName, edgeList.vertexCount(), graphHash);
+            } catch (IOException e) {
+                System.err.println("Error occurred while loading the hub labels, rebuilding: " + e.getMessage());
+            }
+        }
+
+        HubLabels labels = HubLabels.build(AdjacencyGraph.fromEdges(edgeList));
+        try {
+            labels.save(fileName, graphHash);
+        } catch (IOException e) {
+            System.err.println("Error occurred while saving the hub labels: " + e.getMessage());
+        }
+        return labels;
+    }
+
+    /**
+     * Whether a file derived from the base text files alone is newer than
+     * them. {@code graph.bin} is one: {@code edits.log} is replayed on top of
+     * it, so appending edits must not make it stale.
+     */
+    private boolean isNewerThanBase(String fileName) {
+        File file = new File(fileName);
+        return file.exists() && file.lastModified() >= new File("input.txt").lastModified()
+                && file.lastModified() >= new File("vertex_names.txt").lastModified();
+    }
+
+    private String describeNearby(String heading, int sourceVertex, int[] cities) {
+        DistanceOracle serving = oracle.current();
+        StringBuilder text = new StringBuilder(heading).append(names.name(sourceVertex)).append(":");
+        if (cities.length == 0) {
+            text.append(" none");
+        }
+        for (int city : cities) {
+            text.append("\n").append(names.name(city)).append(": ")
+                    .append(serving.distance(sourceVertex, city));
+        }
+        return text.append(describeMode(serving)).toString();
+    }
+
+    private String describeMode(DistanceOracle serving) {
+        if (oracle.isFallback(serving)) {
+            return "\n[Answered by on-demand Dijkstra; the engine is still computing]"
+                    + describeCache(((LazyDijkstraOracle) serving).cache());
+        }
+        if (serving instanceof LazyDijkstraOracle) {
+            return "\n[Answered by on-demand Dijkstra]" + describeCache(((LazyDijkstraOracle) serving).cache());
+        }
+        if (serving instanceof MatrixOracle) {
+            return "\n[Answered by matrix lookup]";
+        }
+        return "\n[Answered by the precomputed engine]";
+    }
 
+    private static String describeCache(DistanceRowCache cache) {
+        return "\n[Row cache: " + cache.hits() + " hits, " + cache.misses() + " misses, " + cache.evictions()
+                + " evictions, " + cache.invalidations() + " invalidations, " + (cache.bytes() >> 10) + " KB]";
+    }
+
+    private String describeStretch(DistanceOracle serving) {
+        if (serving.stretch() == 1) {
+            return "";
+        }
+        return " (approximate, at most " + serving.stretch() + "x the exact distance)";
+    }
+
+    private String describeRoute(DistanceOracle serving, int sourceVertex, int destinationVertex) {
+        int[] route = serving.path(sourceVertex, destinationVertex);
+        if (route == null || route.length == 0) {
+            return "";
+        }
+
+        StringBuilder text = new StringBuilder("\nRoute: ");
+        for (int i = 0; i < route.length; i++) {
+            if (i > 0) {
+                text.append(" -> ");
+            }
+            text.append(names.name(route[i]));
+        }
+        return text.toString();
+    }
+
+    private void addCitiesTab() {
+        CityTableModel citiesTableModel = new CityTableModel(app);
         citiesTable = new JTable(citiesTableModel);
         citiesTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        citiesTable.setAutoCreateRowSorter(true);
+        citiesTable.setRowSorter(new PermutationRowSorter<>(citiesTableModel));
         citiesTable.getTableHeader().setReorderingAllowed(false);
         JButton addCityButton = new JButton("Add City");
         addCityButton.addActionListener(new ActionListener() {
@@ -218,26 +688,32 @@ public class FA_GUI11 {
 
                 if (newCityName != null && !newCityName.trim().isEmpty()) {
                     try {
-                        BufferedWriter writer = new BufferedWriter(new FileWriter("vertex_names.txt", true));
-                        int newCityId = citiesTable.getRowCount() + 1;
-                        writer.write(newCityId + " " + newCityName);
-                        writer.newLine();
-                        writer.close();
-                        frame.dispose();
-                        SwingUtilities.invokeLater(() -> {
-                            try {
-                                new FA_GUI11().initialize();
-                            } catch (FileNotFoundException e1) {
-                                e1.printStackTrace();
-                            }
-                        });
+                        app.addCity(newCityName.trim());
                     } catch (IOException ex) {
-                        ex.printStackTrace();
+                        System.err.println("Error occurred while adding the city: " + ex.getMessage());
                     }
                 }
             }
         });
 
+        JButton deleteCityButton = new JButton("Delete City");
+        deleteCityButton.addActionListener(e -> {
+            int selectedRow = citiesTable.getSelectedRow();
+            if (selectedRow < 0) {
+                JOptionPane.showMessageDialog(frame, "Select a city to delete.");
+                return;
+            }
+            int city = citiesTable.convertRowIndexToModel(selectedRow);
+            if (JOptionPane.showConfirmDialog(frame, "Delete " + names.name(city) + " and its paths?",
+                    "Delete City", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                try {
+                    app.deleteCity(city);
+                } catch (IOException ex) {
+                    System.err.println("Error occurred while deleting the city: " + ex.getMessage());
+                }
+            }
+        });
+
         TableColumn renameColumn = citiesTable.getColumnModel().getColumn(2);
         renameColumn.setCellRenderer(new ButtonRenderer());
         renameColumn.setCellEditor(new ButtonEditor(new JTextField(), frame));
@@ -245,74 +721,57 @@ public class FA_GUI11 {
         JPanel citiesPanel = new JPanel(new BorderLayout());
         JScrollPane citiesScrollPane = new JScrollPane(citiesTable);
         citiesPanel.add(citiesScrollPane, BorderLayout.CENTER);
-        citiesPanel.add(addCityButton, BorderLayout.SOUTH);
+        JPanel cityButtons = new JPanel(new GridLayout(1, 2));
+        cityButtons.add(addCityButton);
+        cityButtons.add(deleteCityButton);
+        citiesPanel.add(cityButtons, BorderLayout.SOUTH);
         tabbedPane.addTab("Cities", citiesPanel);
     }
 
-    private void addPathsTab() throws FileNotFoundException {
-        String[] pathsHeaders = { "Source City", "Distance", "Destination City" };
-        Object[][] pathsData = readPathsFromFile("input.txt");
-
-        DefaultTableModel pathsTableModel = new DefaultTableModel(pathsData, pathsHeaders) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-
+    private void addPathsTab() {
+        PathTableModel pathsTableModel = new PathTableModel(app);
         pathsTable = new JTable(pathsTableModel);
         pathsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        pathsTable.setAutoCreateRowSorter(true);
+        pathsTable.setRowSorter(new PermutationRowSorter<>(pathsTableModel));
         pathsTable.getTableHeader().setReorderingAllowed(false);
 
         JButton addPathButton = new JButton("Add Path");
         addPathButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String[] options = vertexNames.values().toArray(new String[0]);
-                String source = (String) JOptionPane.showInputDialog(frame,
-                        "Select Source City:", "Add New Path",
-                        JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
-
-                String destination = (String) JOptionPane.showInputDialog(frame,
-                        "Select Destination City:", "Add New Path",
-                        JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
-
-                String distanceInput = JOptionPane.showInputDialog(frame, "Enter the distance:");
-
-                if (source != null && destination != null && distanceInput != null) {
-                    int sourceID = getKeyByValue(vertexNames, source);
-                    int destinationID = getKeyByValue(vertexNames, destination);
-
-                    if (sourceID != -1 && destinationID != -1 && sourceID != destinationID) {
+                CityPicker source = new CityPicker(app, cityIndex);
+                CityPicker destination = new CityPicker(app, cityIndex);
+                JTextField distanceField = new JTextField(6);
+                JPanel form = new JPanel(new GridLayout(3, 2));
+                form.add(new JLabel("Source City:"));
+                form.add(source);
+                form.add(new JLabel("Destination City:"));
+                form.add(destination);
+                form.add(new JLabel("Distance:"));
+                form.add(distanceField);
+
+                if (JOptionPane.showConfirmDialog(frame, form, "Add New Path", JOptionPane.OK_CANCEL_OPTION,
+                        JOptionPane.PLAIN_MESSAGE) == JOptionPane.OK_OPTION) {
+                    int sourceID = source.selectedCity();
+                    int destinationID = destination.selectedCity();
+                    String distanceInput = distanceField.getText().trim();
+
+                    if (sourceID == -1 || destinationID == -1) {
+                        JOptionPane.showMessageDialog(frame, "Pick both cities from the suggestions.");
+                    } else if (sourceID != destinationID) {
                         try {
                             int distance = Integer.parseInt(distanceInput);
-                            BufferedWriter writer = new BufferedWriter(new FileWriter("input.txt", true));
-                            writer.write(sourceID + " " + distance + " " + destinationID);
-                            writer.newLine();
-                            writer.close();
-
-                            DefaultTableModel model = (DefaultTableModel) pathsTable.getModel();
-                            Object[] newRow = { source, distance, destination };
-                            model.addRow(newRow);
+                            app.addPath(sourceID, distance, destinationID);
                         } catch (NumberFormatException ex) {
                             JOptionPane.showMessageDialog(frame,
                                     "Invalid distance format. Please enter a valid number.");
                         } catch (IOException ex) {
-                            ex.printStackTrace();
+                            System.err.println("Error occurred while adding the path: " + ex.getMessage());
                         }
                     } else if (sourceID == destinationID) {
                         JOptionPane.showMessageDialog(frame, "Source and destination cities cannot be the same.");
                     }
                 }
-                frame.dispose();
-                SwingUtilities.invokeLater(() -> {
-                    try {
-                        new FA_GUI11().initialize();
-                    } catch (FileNotFoundException e1) {
-                        e1.printStackTrace();
-                    }
-                });
             }
         });
 
@@ -323,59 +782,6 @@ public class FA_GUI11 {
         tabbedPane.addTab("Paths", pathsPanel);
     }
 
-    private Object[][] readPathsFromFile(String fileName) throws FileNotFoundException {
-        Scanner scanner = new Scanner(new File(fileName));
-        Object[][] data = new Object[edges][3];
-
-        for (int i = 0; i < edges; i++) {
-            int sourceID = scanner.nextInt();
-            int weight = scanner.nextInt();
-            int destinationID = scanner.nextInt();
-
-            String sourceCity = vertexNames.get(sourceID);
-            String destinationCity = vertexNames.get(destinationID);
-
-            data[i][0] = sourceCity;
-            data[i][1] = weight;
-            data[i][2] = destinationCity;
-        }
-
-        scanner.close();
-        return data;
-    }
-
-    private Object[][] readCitiesFromFile(String fileName) throws FileNotFoundException {
-        Scanner scanner = new Scanner(new File(fileName));
-        int rows = countLines(fileName);
-        Object[][] data = new Object[rows][3];
-        int index = 0;
-
-        while (scanner.hasNext()) {
-            int id = scanner.nextInt();
-            String cityName = scanner.nextLine().trim();
-            data[index][0] = id;
-            data[index][1] = cityName;
-            data[index][2] = "Rename";
-            index++;
-        }
-
-        scanner.close();
-        return data;
-    }
-
-    private int countLines(String fileName) throws FileNotFoundException {
-        Scanner scanner = new Scanner(new File(fileName));
-        int lines = 0;
-
-        while (scanner.hasNextLine()) {
-            scanner.nextLine();
-            lines++;
-        }
-
-        scanner.close();
-        return lines;
-    }
-
     private class ButtonRenderer extends JButton implements TableCellRenderer {
         public ButtonRenderer() {
             setOpaque(true);
@@ -405,10 +811,9 @@ public class FA_GUI11 {
             renameButton.addActionListener(e -> {
                 String cityName = JOptionPane.showInputDialog(parentFrame, "Enter new city name:");
                 if (cityName != null && !cityName.trim().isEmpty()) {
-                    int selectedRow = citiesTable.getSelectedRow();
-                    citiesTable.getModel().setValueAt(cityName, selectedRow, 1);
-                    updateCityNameInFile(selectedRow + 1, cityName);
+                    renameCity(citiesTable.convertRowIndexToModel(citiesTable.getSelectedRow()), cityName.trim());
                 }
+                fireEditingStopped();
             });
         }
 
@@ -425,88 +830,11 @@ public class FA_GUI11 {
         }
     }
 
-    private void updateCityNameInFile(int cityId, String newName) {
-        String fileName = "vertex_names.txt";
-        Path filePath = Paths.get(fileName);
-
+    private void renameCity(int city, String newName) {
         try {
-            List<String> lines = Files.readAllLines(filePath);
-
-            if (cityId > 0 && cityId <= lines.size()) {
-                lines.set(cityId - 1, cityId + " " + newName);
-                Files.write(filePath, lines);
-                System.out.println("City name updated successfully in the file.");
-                frame.dispose();
-                frame = new JFrame("Floyd's Algorithm GUI");
-                initialize();
-            } else {
-                System.err.println("City ID is out of range.");
-            }
+            app.renameCity(city, newName);
         } catch (IOException e) {
-            System.err.println("Error occurred while updating city name in the file: " + e.getMessage());
-        }
-    }
-
-    private int getKeyByValue(Map<Integer, String> map, String value) {
-        for (Map.Entry<Integer, String> entry : map.entrySet()) {
-            if (entry.getValue().equals(value)) {
-                return entry.getKey();
-            }
-        }
-        return -1;
-    }
-
-    private class GraphPanel extends JPanel {
-        private static final int CIRCLE_RADIUS = 200;
-        private static final int CENTER_X = 300;
-        private static final int CENTER_Y = 250;
-
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            drawGraph(g);
-        }
-
-        private void drawGraph(Graphics g) {
-            for (int i = 0; i < graph.length; i++) {
-                for (int j = 0; j < graph[i].length; j++) {
-                    if (graph[i][j] != INF) {
-                        double angle1 = 2 * Math.PI * i / vertexNames.size();
-                        double angle2 = 2 * Math.PI * j / vertexNames.size();
-
-                        int x1 = (int) (CENTER_X + CIRCLE_RADIUS * Math.cos(angle1));
-                        int y1 = (int) (CENTER_Y + CIRCLE_RADIUS * Math.sin(angle1));
-                        int x2 = (int) (CENTER_X + CIRCLE_RADIUS * Math.cos(angle2));
-                        int y2 = (int) (CENTER_Y + CIRCLE_RADIUS * Math.sin(angle2));
-
-                        g.drawLine(x1, y1, x2, y2);
-
-                        int midX = (x1 + x2) / 2;
-                        int midY = (y1 + y2) / 2;
-
-                        // Highlight the distance numbers
-                        g.setColor(Color.RED); // Set your preferred color
-                        g.setFont(new Font("Arial", Font.BOLD, 12)); // Set your preferred font
-
-                        // Display the highlighted distance near the midpoint
-                        String distanceText = String.valueOf(graph[i][j]);
-                        g.drawString(distanceText, midX, midY);
-
-                        // Reset color and font to default
-                        g.setColor(Color.BLACK);
-                        g.setFont(g.getFont().deriveFont(Font.PLAIN));
-                    }
-                }
-            }
-
-            for (int i = 0; i < graph.length; i++) {
-                double angle = 2 * Math.PI * i / vertexNames.size();
-                int x = (int) (CENTER_X + CIRCLE_RADIUS * Math.cos(angle)) - 10;
-                int y = (int) (CENTER_Y + CIRCLE_RADIUS * Math.sin(angle)) - 10;
-
-                g.fillOval(x, y, 20, 20);
-                g.drawString(vertexNames.get(i + 1), x - 5, y - 5);
-            }
+            System.err.println("Error occurred while recording the city rename: " + e.getMessage());
         }
     }
 }
@@ -1,6 +1,4 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
 
 public class FloydAlgorithm {
 
@@ -8,16 +6,8 @@ public class FloydAlgorithm {
 
     public static void main(String[] args) {
         try {
-            Scanner scanner = new Scanner(new File("input.txt"));
-            int vertices = scanner.nextInt();
-
-            int[][] graph = new int[vertices][vertices];
-            for (int i = 0; i < vertices; i++) {
-                for (int j = 0; j < vertices; j++) {
-                    int weight = scanner.nextInt();
-                    graph[i][j] = (weight == -1) ? INF : weight;
-                }
-            }
+            int[][] graph = GraphLoader.readDenseMatrix("input.txt");
+            int vertices = graph.length;
 
             floydWarshall(graph);
 
@@ -28,9 +18,7 @@ public class FloydAlgorithm {
                 }
                 System.out.println();
             }
-
-            scanner.close();
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary checkpoint of a Floyd-Warshall run: the next pivot to process and
+ * the lower triangle of the (symmetric) working matrix, tagged with the
+ * SHA-256 of the graph it was computed for
+ * ({@link DistanceCache#graphHash}) so a checkpoint is never resumed
+ * against edited data.
+ */
+public final class FloydCheckpoint {
+    private static final int MAGIC = 0x46434b31;
+    private static final int VERSION = 1;
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + 4 + HASH_BYTES + 4 + 4;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final int nextPivot;
+    private final int[][] matrix;
+
+    private FloydCheckpoint(int nextPivot, int[][] matrix) {
+        this.nextPivot = nextPivot;
+        this.matrix = matrix;
+    }
+
+    public int nextPivot() {
+        return nextPivot;
+    }
+
+    public int[][] matrix() {
+        return matrix;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file, forces it to disk and
+     * moves it over the previous checkpoint so a crash mid-write never
+     * leaves a torn file behind.
+     */
+    public static void write(String fileName, byte[] inputHash, int nextPivot, int[][] matrix) throws IOException {
+        Path target = Paths.get(fileName);
+        Path temporary = Paths.get(fileName + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC).putInt(VERSION).put(inputHash).putInt(matrix.length).putInt(nextPivot);
+            writeLowerTriangle(channel, buffer, matrix);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the checkpoint, or returns null when there is none or it was
+     * written for different inputs or a different vertex count.
+     */
+    public static FloydCheckpoint read(String fileName, byte[] inputHash, int vertices) throws IOException {
+        Path source = Paths.get(fileName);
+        if (!Files.exists(source)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.limit(HEADER_BYTES);
+            if (!fill(channel, buffer)) {
+                return null;
+            }
+            buffer.flip();
+            byte[] hash = new byte[HASH_BYTES];
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            buffer.get(hash);
+            if (!Arrays.equals(hash, inputHash) || buffer.getInt() != vertices) {
+                return null;
+            }
+            int nextPivot = buffer.getInt();
+
+            int[][] matrix = new int[vertices][vertices];
+            buffer.clear().flip();
+            for (int i = 0; i < vertices; i++) {
+                int j = 0;
+                while (j <= i) {
+                    if (buffer.remaining() < 4) {
+                        buffer.compact();
+                        if (channel.read(buffer) < 0) {
+                            return null;
+                        }
+                        buffer.flip();
+                        continue;
+                    }
+                    IntBuffer ints = buffer.asIntBuffer();
+                    int count = Math.min(ints.remaining(), i + 1 - j);
+                    ints.get(matrix[i], j, count);
+                    buffer.position(buffer.position() + 4 * count);
+                    j += count;
+                }
+                for (j = 0; j < i; j++) {
+                    matrix[j][i] = matrix[i][j];
+                }
+            }
+            return new FloydCheckpoint(nextPivot, matrix);
+        }
+    }
+
+    public static void delete(String fileName) throws IOException {
+        Files.deleteIfExists(Paths.get(fileName));
+    }
+
+    /**
+     * Appends row by row the entries {@code matrix[i][j]} with j <= i after
+     * whatever the buffer already holds, then flushes the buffer.
+     */
+    static void writeLowerTriangle(FileChannel channel, ByteBuffer buffer, int[][] matrix) throws IOException {
+        for (int i = 0; i < matrix.length; i++) {
+            int j = 0;
+            while (j <= i) {
+                if (buffer.remaining() < 4) {
+                    drain(channel, buffer);
+                }
+                IntBuffer ints = buffer.asIntBuffer();
+                int count = Math.min(ints.remaining(), i + 1 - j);
+                ints.put(matrix[i], j, count);
+                buffer.position(buffer.position() + 4 * count);
+                j += count;
+            }
+        }
+        drain(channel, buffer);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
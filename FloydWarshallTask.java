@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Callable;
+
+/**
+ * Floyd-Warshall over a symmetric adjacency matrix, meant to run on a
+ * background executor. Progress is reported once per pivot and the task
+ * stops with an {@link InterruptedException} at the next pivot after its
+ * thread is interrupted. With a checkpoint file configured the working
+ * matrix is saved every {@code checkpointEvery} pivots, and a resumed run
+ * picks up after the last saved pivot block.
+ */
+public final class FloydWarshallTask implements Callable<int[][]> {
+    private static final int INF = DistanceOracle.INF;
+
+    private final int[][] graph;
+    private final ProgressListener listener;
+    private final String checkpointFile;
+    private final byte[] inputHash;
+    private final int checkpointEvery;
+    private final boolean resume;
+
+    public FloydWarshallTask(int[][] graph, ProgressListener listener) {
+        this(graph, listener, null, null, 0, false);
+    }
+
+    public FloydWarshallTask(int[][] graph, ProgressListener listener, String checkpointFile, byte[] inputHash,
+            int checkpointEvery, boolean resume) {
+        this.graph = graph;
+        this.listener = listener;
+        this.checkpointFile = checkpointFile;
+        this.inputHash = inputHash;
+        this.checkpointEvery = checkpointEvery;
+        this.resume = resume;
+    }
+
+    @Override
+    public int[][] call() throws InterruptedException {
+        int vertices = graph.length;
+        int[][] shortests = null;
+        int startPivot = 0;
+
+        if (resume && checkpointFile != null) {
+            try {
+                FloydCheckpoint checkpoint = FloydCheckpoint.read(checkpointFile, inputHash, vertices);
+                if (checkpoint != null) {
+                    shortests = checkpoint.matrix();
+                    startPivot = checkpoint.nextPivot();
+                    System.out.println("Resuming Floyd-Warshall from pivot " + startPivot);
+                }
+            } catch (IOException e) {
+                System.err.println("Error occurred while reading the checkpoint: " + e.getMessage());
+            }
+        }
+
+        if (shortests == null) {
+            shortests = new int[vertices][vertices];
+            for (int i = 0; i < vertices; i++) {
+                for (int j = 0; j < vertices; j++) {
+                    shortests[i][j] = graph[i][j];
+                }
+            }
+        }
+
+        LocalDateTime startTime = LocalDateTime.now();
+        for (int k = startPivot; k < vertices; k++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Floyd-Warshall cancelled at pivot " + k);
+            }
+            for (int i = 1; i < vertices; i++) {
+                for (int j = 0; j < i; j++) {
+                    if (shortests[i][k] != INF && shortests[k][j] != INF
+                            && shortests[i][k] + shortests[k][j] < shortests[i][j]) {
+                        shortests[i][j] = shortests[i][k] + shortests[k][j];
+                        shortests[j][i] = shortests[i][j];
+                    }
+                }
+            }
+            listener.progress(k + 1, vertices);
+
+            if (checkpointFile != null && checkpointEvery > 0 && (k + 1) % checkpointEvery == 0
+                    && k + 1 < vertices) {
+                try {
+                    FloydCheckpoint.write(checkpointFile, inputHash, k + 1, shortests);
+                } catch (IOException e) {
+                    System.err.println("Error occurred while writing the checkpoint: " + e.getMessage());
+                }
+            }
+        }
+        if (checkpointFile != null) {
+            try {
+                FloydCheckpoint.delete(checkpointFile);
+            } catch (IOException e) {
+                System.err.println("Error occurred while removing the checkpoint: " + e.getMessage());
+            }
+        }
+        LocalDateTime endTime = LocalDateTime.now();
+        Duration duration = Duration.between(startTime, endTime);
+        System.out.println("Time Difference: " + duration.toNanos() + "ns");
+        return shortests;
+    }
+}
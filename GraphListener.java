@@ -0,0 +1,15 @@
+/**
+ * Receives the edits made through an {@link AppModel}, after they have been
+ * logged and applied. Vertex and edge arguments are dense indices into the
+ * model's current {@link GraphModel}.
+ */
+public interface GraphListener {
+    void cityAdded(int city);
+
+    void cityRenamed(int city);
+
+    void pathAdded(int edge);
+
+    /** Cities were renumbered, e.g. after a delete; every view must reload. */
+    void graphReplaced();
+}
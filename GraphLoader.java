@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Readers for the project's text formats built on {@link ByteTokenReader}:
+ * the {@code src weight dst} edge list of {@code input.txt}, the same list
+ * preceded by an edge count ({@code inp_cpy.txt}), the {@code -1}-padded
+ * dense matrix read by {@link FloydAlgorithm}, and {@code vertex_names.txt}.
+ * City IDs on disk may be any 64-bit values; edge lists come back in the
+ * dense indices assigned by {@link VertexIds} while reading the names.
+ */
+public final class GraphLoader {
+    private static final int REPORTED_LINES = 5;
+
+    private GraphLoader() {
+    }
+
+    /**
+     * Reads the edge list; files of at least {@code floyd.parallelLoadMB}
+     * (default 16) are parsed in parallel by {@link ParallelEdgeReader}.
+     */
+    public static EdgeList readEdgeList(String fileName, VertexIds ids) throws IOException {
+        long parallelBytes = Long.getLong("floyd.parallelLoadMB", 16) << 20;
+        if (Files.size(Paths.get(fileName)) >= parallelBytes) {
+            return ParallelEdgeReader.read(fileName, ids);
+        }
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            return readEdges(reader, ids, Integer.MAX_VALUE);
+        }
+    }
+
+    public static EdgeList readCountedEdgeList(String fileName, VertexIds ids) throws IOException {
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            int edges = reader.nextInt();
+            return readEdges(reader, ids, edges);
+        }
+    }
+
+    /**
+     * Reads a vertex count followed by a row-major weight matrix, mapping
+     * {@code -1} to {@link DistanceOracle#INF}.
+     */
+    public static int[][] readDenseMatrix(String fileName) throws IOException {
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            int vertices = reader.nextInt();
+            int[][] graph = new int[vertices][vertices];
+            for (int i = 0; i < vertices; i++) {
+                for (int j = 0; j < vertices; j++) {
+                    int weight = reader.nextInt();
+                    graph[i][j] = (weight == -1) ? DistanceOracle.INF : weight;
+                }
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * Reads {@code id name} lines; the name is the rest of the line. Each
+     * new ID is added to {@code ids} and its name is stored at the same
+     * dense index. A repeated ID keeps its index and takes the later name.
+     */
+    public static NameIndex readVertexNames(String fileName, VertexIds ids) throws IOException {
+        NameIndex names = new NameIndex(1024);
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            while (reader.hasNext()) {
+                int vertex = ids.add(reader.nextLong());
+                int length = reader.readRestOfLine();
+                names.set(vertex, reader.text(), 0, length);
+            }
+        }
+        return names;
+    }
+
+    public static int countLines(String fileName) throws IOException {
+        int lines = 0;
+        try (ByteTokenReader reader = new ByteTokenReader(fileName)) {
+            while (reader.hasNext()) {
+                reader.skipLine();
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /** One summary line for every edge dropped for unknown vertex IDs. */
+    static void reportInvalidEdges(String fileName, int invalid, int[] firstLines) {
+        if (invalid == 0) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int line : firstLines) {
+            lines.append(lines.length() == 0 ? "" : ", ").append(line);
+        }
+        System.err.println("Unknown city IDs in " + fileName + ": " + invalid + " edges skipped (first at line "
+                + lines + ")");
+    }
+
+    private static EdgeList readEdges(ByteTokenReader reader, VertexIds ids, int maxEdges) throws IOException {
+        int[] sources = new int[1024];
+        int[] weights = new int[1024];
+        int[] destinations = new int[1024];
+        int edges = 0;
+        int invalid = 0;
+        int[] invalidLines = new int[REPORTED_LINES];
+
+        for (int read = 0; read < maxEdges && reader.hasNext(); read++) {
+            int line = reader.line();
+            int sourceVertex = ids.indexOf(reader.nextLong());
+            int weight = reader.nextInt();
+            int destinationVertex = ids.indexOf(reader.nextLong());
+
+            if (sourceVertex >= 0 && destinationVertex >= 0) {
+                if (edges == sources.length) {
+                    sources = Arrays.copyOf(sources, edges * 2);
+                    weights = Arrays.copyOf(weights, edges * 2);
+                    destinations = Arrays.copyOf(destinations, edges * 2);
+                }
+                sources[edges] = sourceVertex;
+                weights[edges] = weight;
+                destinations[edges] = destinationVertex;
+                edges++;
+            } else {
+                if (invalid < REPORTED_LINES) {
+                    invalidLines[invalid] = line;
+                }
+                invalid++;
+            }
+        }
+
+        reportInvalidEdges(reader.fileName(), invalid,
+                Arrays.copyOf(invalidLines, Math.min(invalid, REPORTED_LINES)));
+        return new EdgeList(ids.size(), Arrays.copyOf(sources, edges), Arrays.copyOf(weights, edges),
+                Arrays.copyOf(destinations, edges));
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.IOException;
+
+/**
+ * In-memory graph loaded in one pass over {@code input.txt} and
+ * {@code vertex_names.txt}: the primitive edge arrays plus the city names.
+ * The engine, tables, combo boxes and graph panel all read from the same
+ * instance instead of re-reading the files. Vertices are dense indices;
+ * {@link #ids()} maps them to and from the city IDs in the files.
+ *
+ * <p>Only the edge list is a fixed snapshot. {@link #ids()} and
+ * {@link #names()} are shared by every model {@link AppModel} publishes
+ * and change in place when a city is added or renamed, so they may only
+ * be read on the thread that edits them; background work gets the
+ * {@link #edges()} alone.
+ */
+public final class GraphModel {
+    private final VertexIds ids;
+    private final NameIndex names;
+    private final EdgeList edgeList;
+
+    public GraphModel(VertexIds ids, NameIndex names, EdgeList edgeList) {
+        this.ids = ids;
+        this.names = names;
+        this.edgeList = edgeList;
+    }
+
+    public static GraphModel load(String namesFile, String edgesFile) throws IOException {
+        long start = System.nanoTime();
+        VertexIds ids = new VertexIds(1024);
+        NameIndex names = GraphLoader.readVertexNames(namesFile, ids);
+        long namesLoaded = System.nanoTime();
+        EdgeList edgeList = GraphLoader.readEdgeList(edgesFile, ids);
+        long edgesLoaded = System.nanoTime();
+
+        System.out.println("Loaded " + ids.size() + " cities in " + (namesLoaded - start) + "ns, "
+                + edgeList.edgeCount() + " paths in " + (edgesLoaded - namesLoaded) + "ns");
+        return new GraphModel(ids, names, edgeList);
+    }
+
+    public int vertexCount() {
+        return edgeList.vertexCount();
+    }
+
+    public VertexIds ids() {
+        return ids;
+    }
+
+    /** City names by dense vertex index, shared by the loaders and the GUI. */
+    public NameIndex names() {
+        return names;
+    }
+
+    public EdgeList edges() {
+        return edgeList;
+    }
+}
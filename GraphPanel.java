@@ -0,0 +1,480 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import javax.swing.JPanel;
+
+/**
+ * Draws the cities on a circle and the paths between them, reading the
+ * sparse edge list of the {@link AppModel} so each path is drawn once.
+ * Vertex positions are computed once per city count, and the drawing is
+ * cached in three transparent layers (edges, vertices, labels) that are
+ * only redrawn when an edit or the view affects them: a rename redraws the
+ * labels, a new path is drawn onto the existing edge and label layers, and
+ * a new or deleted city, which moves every vertex, redraws everything.
+ *
+ * <p>The wheel zooms around the cursor, dragging pans and a double click
+ * fits the graph again. A drag only shifts the cached layers, which are
+ * drawn again once when the button is released. Only what lies inside the
+ * viewport is drawn: the vertices come from a {@link PointQuadtree} range
+ * query and paths are culled by their bounding box. When the visible
+ * vertices would sit only a few pixels apart, vertices and paths are
+ * aggregated into screen cells and labels are left out, so a zoomed-out
+ * view of 10k+ cities costs about as much as a zoomed-in one. Hovering
+ * highlights the city under the cursor, found through the quadtree.
+ */
+public final class GraphPanel extends JPanel implements GraphListener {
+    private static final int CIRCLE_RADIUS = 200;
+    private static final int CENTER_X = 300;
+    private static final int CENTER_Y = 250;
+    private static final int VERTEX_DIAMETER = 20;
+    private static final int MIN_SPACING = 30;
+    private static final int MIN_SCREEN_SPACING = 6;
+    private static final int MAX_DETAILED_VERTICES = 2000;
+    private static final int MAX_LABELED_VERTICES = 300;
+    private static final int MIN_LABELED_EDGE = 40;
+    private static final int AGGREGATE_CELL = 8;
+    private static final int LABEL_MARGIN = 100;
+    private static final double MIN_SCALE = 1e-4;
+    private static final double MAX_SCALE = 50;
+    private static final Font DISTANCE_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font NAME_FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
+    private static final Font HOVER_FONT = new Font(Font.DIALOG, Font.BOLD, 13);
+    private static final Color AGGREGATE_EDGE_COLOR = new Color(0xB0B0B0);
+    private static final Color HOVER_COLOR = new Color(0x1E90FF);
+
+    private final AppModel app;
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private float radius = CIRCLE_RADIUS;
+    private PointQuadtree quadtree = new PointQuadtree(xs, ys, 0);
+
+    private double scale = 1;
+    private double offsetX;
+    private double offsetY;
+    private boolean viewAdjusted;
+    private boolean viewFitted;
+    private int dragX;
+    private int dragY;
+    private int panX;
+    private int panY;
+    private int hovered = -1;
+
+    private BufferedImage edgeLayer;
+    private BufferedImage vertexLayer;
+    private BufferedImage labelLayer;
+    private boolean aggregated;
+    private int[] visible = new int[16];
+    private int visibleCount;
+
+    public GraphPanel(AppModel app) {
+        this.app = app;
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+                dragY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                panX += e.getX() - dragX;
+                panY += e.getY() - dragY;
+                dragX = e.getX();
+                dragY = e.getY();
+                repaint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                finishPan();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                finishPan();
+                double zoomed = scale * Math.pow(1.1, -e.getPreciseWheelRotation());
+                zoomed = Math.max(MIN_SCALE, Math.min(MAX_SCALE, zoomed));
+                offsetX = e.getX() - (e.getX() - offsetX) * zoomed / scale;
+                offsetY = e.getY() - (e.getY() - offsetY) * zoomed / scale;
+                scale = zoomed;
+                viewAdjusted = true;
+                invalidateAll();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    viewAdjusted = false;
+                    viewFitted = false;
+                    invalidateAll();
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                hover(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                if (hovered >= 0) {
+                    hovered = -1;
+                    repaint();
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    @Override
+    public void cityAdded(int city) {
+        invalidateAll();
+    }
+
+    @Override
+    public void cityRenamed(int city) {
+        labelLayer = null;
+        repaint();
+    }
+
+    @Override
+    public void pathAdded(int edge) {
+        if (aggregated) {
+            edgeLayer = null;
+            labelLayer = null;
+            repaint();
+            return;
+        }
+        if (edgeLayer != null) {
+            Graphics2D g = edgeLayer.createGraphics();
+            drawEdge(g, app.graph().edges(), edge);
+            g.dispose();
+        }
+        if (labelLayer != null) {
+            Graphics2D g = labelLayer.createGraphics();
+            drawDistance(g, app.graph().edges(), edge);
+            g.dispose();
+        }
+        repaint();
+    }
+
+    @Override
+    public void graphReplaced() {
+        hovered = -1;
+        invalidateAll();
+    }
+
+    /** Moves the view by the distance dragged so far and renders the layers there. */
+    private void finishPan() {
+        if (panX == 0 && panY == 0) {
+            return;
+        }
+        offsetX += panX;
+        offsetY += panY;
+        panX = 0;
+        panY = 0;
+        viewAdjusted = true;
+        invalidateAll();
+    }
+
+    private void invalidateAll() {
+        dropLayers();
+        repaint();
+    }
+
+    private void dropLayers() {
+        edgeLayer = null;
+        vertexLayer = null;
+        labelLayer = null;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (xs.length != app.graph().vertexCount()) {
+            computePositions();
+            dropLayers();
+        }
+        if (!viewFitted) {
+            fitView(width, height);
+            dropLayers();
+        }
+        if (edgeLayer != null && (edgeLayer.getWidth() != width || edgeLayer.getHeight() != height)) {
+            dropLayers();
+        }
+
+        if (edgeLayer == null || vertexLayer == null || labelLayer == null) {
+            collectVisible(width, height);
+        }
+        if (edgeLayer == null) {
+            edgeLayer = renderEdges(width, height);
+        }
+        if (vertexLayer == null) {
+            vertexLayer = renderVertices(width, height);
+        }
+        if (labelLayer == null) {
+            labelLayer = renderLabels(width, height);
+        }
+        g.drawImage(edgeLayer, panX, panY, null);
+        g.drawImage(vertexLayer, panX, panY, null);
+        g.drawImage(labelLayer, panX, panY, null);
+        g.translate(panX, panY);
+        drawHover(g);
+        g.translate(-panX, -panY);
+    }
+
+    /**
+     * Places the cities on a circle. Small graphs keep the original 200px
+     * circle; larger ones grow it so neighbours stay {@link #MIN_SPACING}
+     * apart at zoom 1.
+     */
+    private void computePositions() {
+        int vertices = app.graph().vertexCount();
+        float previousRadius = radius;
+        radius = (float) Math.max(CIRCLE_RADIUS, vertices * MIN_SPACING / (2 * Math.PI));
+        xs = new float[vertices];
+        ys = new float[vertices];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            xs[i] = (float) (CENTER_X + radius * Math.cos(angle));
+            ys[i] = (float) (CENTER_Y + radius * Math.sin(angle));
+        }
+        quadtree = new PointQuadtree(xs, ys, vertices);
+        if (hovered >= vertices) {
+            hovered = -1;
+        }
+        if (radius != previousRadius && !viewAdjusted) {
+            viewFitted = false;
+        }
+    }
+
+    /** Zoom 1 for the original circle, otherwise the whole circle fitted into the panel. */
+    private void fitView(int width, int height) {
+        if (radius <= CIRCLE_RADIUS) {
+            scale = 1;
+            offsetX = 0;
+            offsetY = 0;
+        } else {
+            scale = Math.min(width, height) / (2.0 * radius + 2 * VERTEX_DIAMETER);
+            offsetX = width / 2.0 - CENTER_X * scale;
+            offsetY = height / 2.0 - CENTER_Y * scale;
+        }
+        viewFitted = true;
+    }
+
+    private int screenX(int vertex) {
+        return (int) (xs[vertex] * scale + offsetX);
+    }
+
+    private int screenY(int vertex) {
+        return (int) (ys[vertex] * scale + offsetY);
+    }
+
+    /** Queries the quadtree for the vertices in the viewport and picks the level of detail. */
+    private void collectVisible(int width, int height) {
+        visibleCount = 0;
+        float x0 = (float) ((-LABEL_MARGIN - offsetX) / scale);
+        float y0 = (float) ((-LABEL_MARGIN - offsetY) / scale);
+        float x1 = (float) ((width + LABEL_MARGIN - offsetX) / scale);
+        float y1 = (float) ((height + LABEL_MARGIN - offsetY) / scale);
+        quadtree.query(x0, y0, x1, y1, vertex -> {
+            if (visibleCount == visible.length) {
+                visible = Arrays.copyOf(visible, visibleCount * 2);
+            }
+            visible[visibleCount++] = vertex;
+        });
+        double screenSpacing = xs.length > 1 ? 2 * Math.PI * radius / xs.length * scale : Double.MAX_VALUE;
+        aggregated = visibleCount > MAX_DETAILED_VERTICES || screenSpacing < MIN_SCREEN_SPACING;
+    }
+
+    private int vertexDiameter() {
+        return (int) Math.max(3, Math.min(VERTEX_DIAMETER, VERTEX_DIAMETER * scale));
+    }
+
+    private static boolean onScreen(int xA, int yA, int xB, int yB, int width, int height) {
+        return Math.max(xA, xB) >= 0 && Math.min(xA, xB) <= width && Math.max(yA, yB) >= 0
+                && Math.min(yA, yB) <= height;
+    }
+
+    /**
+     * Visible paths. When aggregated, both ends are snapped to screen cells
+     * and each pair of cells is drawn once, however many paths join them.
+     */
+    private BufferedImage renderEdges(int width, int height) {
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = layer.createGraphics();
+        EdgeList edgeList = app.graph().edges();
+        if (!aggregated) {
+            for (int e = 0; e < edgeList.edgeCount(); e++) {
+                drawEdge(g, edgeList, e);
+            }
+            g.dispose();
+            return layer;
+        }
+
+        g.setColor(AGGREGATE_EDGE_COLOR);
+        LongIntMap drawn = new LongIntMap(1024);
+        int half = AGGREGATE_CELL / 2;
+        for (int e = 0; e < edgeList.edgeCount(); e++) {
+            int xA = screenX(edgeList.source(e));
+            int yA = screenY(edgeList.source(e));
+            int xB = screenX(edgeList.destination(e));
+            int yB = screenY(edgeList.destination(e));
+            if (!onScreen(xA, yA, xB, yB, width, height)) {
+                continue;
+            }
+            int cellA = cell(xA, yA);
+            int cellB = cell(xB, yB);
+            if (cellA == cellB) {
+                continue;
+            }
+            long key = (long) Math.min(cellA, cellB) << 32 | (Math.max(cellA, cellB) & 0xFFFFFFFFL);
+            if (drawn.putIfAbsent(key, e) == LongIntMap.MISSING) {
+                g.drawLine(Math.floorDiv(xA, AGGREGATE_CELL) * AGGREGATE_CELL + half,
+                        Math.floorDiv(yA, AGGREGATE_CELL) * AGGREGATE_CELL + half,
+                        Math.floorDiv(xB, AGGREGATE_CELL) * AGGREGATE_CELL + half,
+                        Math.floorDiv(yB, AGGREGATE_CELL) * AGGREGATE_CELL + half);
+            }
+        }
+        g.dispose();
+        return layer;
+    }
+
+    /** Packs the screen cell of a point; cells 32k apart may share a key, which only merges two lines. */
+    private static int cell(int x, int y) {
+        return Math.floorDiv(x, AGGREGATE_CELL) << 16 | (Math.floorDiv(y, AGGREGATE_CELL) & 0xFFFF);
+    }
+
+    /**
+     * Visible vertices. When aggregated, one square per occupied screen
+     * cell, darker the more cities it holds.
+     */
+    private BufferedImage renderVertices(int width, int height) {
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = layer.createGraphics();
+        g.setColor(Color.BLACK);
+        if (!aggregated) {
+            int diameter = vertexDiameter();
+            for (int i = 0; i < visibleCount; i++) {
+                int vertex = visible[i];
+                g.fillOval(screenX(vertex) - diameter / 2, screenY(vertex) - diameter / 2, diameter, diameter);
+            }
+            g.dispose();
+            return layer;
+        }
+
+        int columns = width / AGGREGATE_CELL + 1;
+        int rows = height / AGGREGATE_CELL + 1;
+        int[] counts = new int[columns * rows];
+        for (int i = 0; i < visibleCount; i++) {
+            int column = Math.floorDiv(screenX(visible[i]), AGGREGATE_CELL);
+            int row = Math.floorDiv(screenY(visible[i]), AGGREGATE_CELL);
+            if (column >= 0 && column < columns && row >= 0 && row < rows) {
+                counts[row * columns + column]++;
+            }
+        }
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                int shade = Math.max(0, 160 - 40 * (31 - Integer.numberOfLeadingZeros(counts[c])));
+                g.setColor(new Color(shade, shade, shade));
+                g.fillRect(c % columns * AGGREGATE_CELL, c / columns * AGGREGATE_CELL, AGGREGATE_CELL - 1,
+                        AGGREGATE_CELL - 1);
+            }
+        }
+        g.dispose();
+        return layer;
+    }
+
+    /**
+     * Distances at the middle of paths long enough on screen to hold one,
+     * and names above the visible vertices; none while aggregated, and no
+     * names when too many cities are in view to read.
+     */
+    private BufferedImage renderLabels(int width, int height) {
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        if (aggregated) {
+            return layer;
+        }
+        Graphics2D g = layer.createGraphics();
+        EdgeList edgeList = app.graph().edges();
+        for (int e = 0; e < edgeList.edgeCount(); e++) {
+            drawDistance(g, edgeList, e);
+        }
+        if (visibleCount <= MAX_LABELED_VERTICES) {
+            NameIndex names = app.graph().names();
+            int diameter = vertexDiameter();
+            g.setColor(Color.BLACK);
+            g.setFont(NAME_FONT);
+            for (int i = 0; i < visibleCount; i++) {
+                int vertex = visible[i];
+                g.drawString(names.name(vertex), screenX(vertex) - diameter / 2 - 5,
+                        screenY(vertex) - diameter / 2 - 5);
+            }
+        }
+        g.dispose();
+        return layer;
+    }
+
+    private void drawEdge(Graphics2D g, EdgeList edgeList, int edge) {
+        int xA = screenX(edgeList.source(edge));
+        int yA = screenY(edgeList.source(edge));
+        int xB = screenX(edgeList.destination(edge));
+        int yB = screenY(edgeList.destination(edge));
+        if (onScreen(xA, yA, xB, yB, getWidth(), getHeight())) {
+            g.setColor(Color.BLACK);
+            g.drawLine(xA, yA, xB, yB);
+        }
+    }
+
+    private void drawDistance(Graphics2D g, EdgeList edgeList, int edge) {
+        int xA = screenX(edgeList.source(edge));
+        int yA = screenY(edgeList.source(edge));
+        int xB = screenX(edgeList.destination(edge));
+        int yB = screenY(edgeList.destination(edge));
+        int midX = (xA + xB) / 2;
+        int midY = (yA + yB) / 2;
+        if (midX < -LABEL_MARGIN || midX > getWidth() || midY < 0 || midY > getHeight() + DISTANCE_FONT.getSize()
+                || Math.abs(xB - xA) + Math.abs(yB - yA) < MIN_LABELED_EDGE) {
+            return;
+        }
+        g.setColor(Color.RED);
+        g.setFont(DISTANCE_FONT);
+        g.drawString(String.valueOf(edgeList.weight(edge)), midX, midY);
+    }
+
+    private void hover(int x, int y) {
+        float reach = (float) (Math.max(vertexDiameter() / 2, 4) / scale);
+        int vertex = quadtree.nearest((float) ((x - offsetX) / scale), (float) ((y - offsetY) / scale), reach);
+        if (vertex != hovered) {
+            hovered = vertex;
+            repaint();
+        }
+    }
+
+    /** Rings the city under the cursor and names it, on top of the cached layers. */
+    private void drawHover(Graphics g) {
+        if (hovered < 0 || hovered >= xs.length) {
+            return;
+        }
+        int diameter = vertexDiameter() + 6;
+        int x = screenX(hovered);
+        int y = screenY(hovered);
+        g.setColor(HOVER_COLOR);
+        g.drawOval(x - diameter / 2, y - diameter / 2, diameter, diameter);
+        g.setFont(HOVER_FONT);
+        g.drawString(app.graph().names().name(hovered), x + diameter / 2 + 4, y + diameter / 2 + 4);
+    }
+}
@@ -0,0 +1,303 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * 2-hop hub labels built by pruned landmark labelling. Every vertex keeps
+ * a label of (hub, distance) pairs sorted by hub rank, and
+ * {@code dist(s, t)} is the best meeting hub found by merging the labels of
+ * s and t. Labels live in three flat arrays indexed through
+ * {@code offsets}, so no V x V matrix is ever allocated.
+ *
+ * Run {@code java HubLabels [input.txt] [vertex_names.txt] [labels.hub]}
+ * to build the labels offline. Like a contraction hierarchy file, the
+ * labels file is tagged with the hash of its graph.
+ */
+public final class HubLabels implements DistanceOracle {
+    private static final int MAGIC = 0x46484c31;
+    private static final int VERSION = 2;
+    private static final int HASH_BYTES = 32;
+
+    private final int[] offsets;
+    private final int[] hubs;
+    private final int[] hubDistances;
+
+    private HubLabels(int[] offsets, int[] hubs, int[] hubDistances) {
+        this.offsets = offsets;
+        this.hubs = hubs;
+        this.hubDistances = hubDistances;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String inputFile = args.length > 0 ? args[0] : "input.txt";
+        String namesFile = args.length > 1 ? args[1] : "vertex_names.txt";
+        String outputFile = args.length > 2 ? args[2] : "labels.hub";
+
+        AdjacencyGraph graph;
+        byte[] graphHash;
+        if (inputFile.endsWith(".bin")) {
+            graph = BinaryGraphFormat.loadAdjacency(inputFile);
+            graphHash = BinaryGraphFormat.graphHash(inputFile);
+        } else {
+            EdgeList edgeList = GraphModel.load(namesFile, inputFile).edges();
+            graph = AdjacencyGraph.fromEdges(edgeList);
+            graphHash = DistanceCache.graphHash(edgeList);
+        }
+        long start = System.nanoTime();
+        HubLabels labels = build(graph);
+        System.out.println("Labelling time: " + (System.nanoTime() - start) + "ns, "
+                + labels.labelEntries() + " label entries");
+        labels.save(outputFile, graphHash);
+    }
+
+    /**
+     * Runs a pruned Dijkstra from every vertex in decreasing-degree order;
+     * a vertex is skipped once the labels built so far already cover it.
+     */
+    public static HubLabels build(AdjacencyGraph graph) throws InterruptedException {
+        int vertices = graph.vertexCount();
+        int[] order = orderByDegree(graph);
+
+        int[][] labelHubs = new int[vertices][];
+        int[][] labelDistances = new int[vertices][];
+        int[] labelSizes = new int[vertices];
+        for (int v = 0; v < vertices; v++) {
+            labelHubs[v] = new int[4];
+            labelDistances[v] = new int[4];
+        }
+
+        int[] hubDistance = new int[vertices];
+        int[] distance = new int[vertices];
+        int[] touched = new int[vertices];
+        Arrays.fill(hubDistance, INF);
+        Arrays.fill(distance, INF);
+        MinHeap heap = new MinHeap();
+
+        for (int hubRank = 0; hubRank < vertices; hubRank++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Hub labelling cancelled at hub " + hubRank);
+            }
+            int hub = order[hubRank];
+            for (int i = 0; i < labelSizes[hub]; i++) {
+                hubDistance[labelHubs[hub][i]] = labelDistances[hub][i];
+            }
+
+            int touchedCount = 0;
+            distance[hub] = 0;
+            touched[touchedCount++] = hub;
+            heap.clear();
+            heap.push(0, hub);
+
+            while (!heap.isEmpty()) {
+                int d = heap.peekKey();
+                int u = heap.peekVertex();
+                heap.pop();
+                if (d > distance[u]) {
+                    continue;
+                }
+
+                boolean covered = false;
+                for (int i = 0; i < labelSizes[u]; i++) {
+                    int known = hubDistance[labelHubs[u][i]];
+                    if (known != INF && known + labelDistances[u][i] <= d) {
+                        covered = true;
+                        break;
+                    }
+                }
+                if (covered) {
+                    continue;
+                }
+
+                if (labelSizes[u] == labelHubs[u].length) {
+                    labelHubs[u] = Arrays.copyOf(labelHubs[u], labelSizes[u] * 2);
+                    labelDistances[u] = Arrays.copyOf(labelDistances[u], labelSizes[u] * 2);
+                }
+                labelHubs[u][labelSizes[u]] = hubRank;
+                labelDistances[u][labelSizes[u]] = d;
+                labelSizes[u]++;
+
+                for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                    int v = graph.arcTarget(arc);
+                    int candidate = d + graph.arcWeight(arc);
+                    if (candidate < distance[v]) {
+                        if (distance[v] == INF) {
+                            touched[touchedCount++] = v;
+                        }
+                        distance[v] = candidate;
+                        heap.push(candidate, v);
+                    }
+                }
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                distance[touched[i]] = INF;
+            }
+            for (int i = 0; i < labelSizes[hub]; i++) {
+                hubDistance[labelHubs[hub][i]] = INF;
+            }
+        }
+
+        int[] offsets = new int[vertices + 1];
+        for (int v = 0; v < vertices; v++) {
+            offsets[v + 1] = offsets[v] + labelSizes[v];
+        }
+        int[] hubs = new int[offsets[vertices]];
+        int[] hubDistances = new int[offsets[vertices]];
+        for (int v = 0; v < vertices; v++) {
+            System.arraycopy(labelHubs[v], 0, hubs, offsets[v], labelSizes[v]);
+            System.arraycopy(labelDistances[v], 0, hubDistances, offsets[v], labelSizes[v]);
+        }
+        return new HubLabels(offsets, hubs, hubDistances);
+    }
+
+    @Override
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int distance(int source, int destination) {
+        int i = offsets[source];
+        int iEnd = offsets[source + 1];
+        int j = offsets[destination];
+        int jEnd = offsets[destination + 1];
+        int best = INF;
+
+        while (i < iEnd && j < jEnd) {
+            if (hubs[i] < hubs[j]) {
+                i++;
+            } else if (hubs[i] > hubs[j]) {
+                j++;
+            } else {
+                best = Math.min(best, hubDistances[i] + hubDistances[j]);
+                i++;
+                j++;
+            }
+        }
+        return best;
+    }
+
+    public int labelEntries() {
+        return hubs.length;
+    }
+
+    /**
+     * Writes the labels as varints: per vertex the entry count, then each
+     * hub rank as a delta from the previous one followed by its distance.
+     */
+    public void save(String fileName, byte[] graphHash) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(graphHash);
+            out.writeInt(vertexCount());
+            out.writeInt(hubs.length);
+            for (int v = 0; v < vertexCount(); v++) {
+                writeVarint(out, offsets[v + 1] - offsets[v]);
+                int previous = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    writeVarint(out, hubs[i] - previous);
+                    writeVarint(out, hubDistances[i]);
+                    previous = hubs[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads labels saved for the graph with {@code vertices} vertices and
+     * hash {@code graphHash}; throws if the file was built for another or
+     * its counts do not add up.
+     */
+    public static HubLabels load(String fileName, int vertices, byte[] graphHash) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a hub label file: " + fileName);
+            }
+            byte[] storedHash = new byte[HASH_BYTES];
+            in.readFully(storedHash);
+            if (in.readInt() != vertices || !Arrays.equals(storedHash, graphHash)) {
+                throw new IOException(fileName + " was built for a different graph");
+            }
+            int entries = in.readInt();
+            // Each entry takes at least two varint bytes.
+            if (entries < 0 || entries > Files.size(Paths.get(fileName)) / 2) {
+                throw new IOException("Corrupt hub label file: " + fileName);
+            }
+            int[] offsets = new int[vertices + 1];
+            int[] hubs = new int[entries];
+            int[] hubDistances = new int[entries];
+
+            int index = 0;
+            for (int v = 0; v < vertices; v++) {
+                int count = readVarint(in);
+                if (count < 0 || count > entries - index) {
+                    throw new IOException("Corrupt hub label file: " + fileName);
+                }
+                int previous = 0;
+                for (int i = 0; i < count; i++) {
+                    previous += readVarint(in);
+                    if (previous < 0 || previous >= vertices) {
+                        throw new IOException("Corrupt hub label file: " + fileName);
+                    }
+                    hubs[index] = previous;
+                    hubDistances[index] = readVarint(in);
+                    index++;
+                }
+                offsets[v + 1] = index;
+            }
+            if (index != entries) {
+                throw new IOException("Corrupt hub label file: " + fileName);
+            }
+            return new HubLabels(offsets, hubs, hubDistances);
+        }
+    }
+
+    private static int[] orderByDegree(AdjacencyGraph graph) {
+        int vertices = graph.vertexCount();
+        long[] keys = new long[vertices];
+        for (int v = 0; v < vertices; v++) {
+            keys[v] = ((long) (Integer.MAX_VALUE - graph.degree(v)) << 32) | v;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[vertices];
+        for (int i = 0; i < vertices; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Truncated hub label file");
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
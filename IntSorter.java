@@ -0,0 +1,56 @@
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Stable merge sort of an {@code int[]} under a comparator over ints, for
+ * sorting index permutations without boxing them into {@code Integer[]}.
+ */
+final class IntSorter {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private IntSorter() {
+    }
+
+    static void sort(int[] values, IntBinaryOperator comparator) {
+        sort(values, new int[values.length], 0, values.length, comparator);
+    }
+
+    /** Equal values keep their order, which for permutations means model order. */
+    private static void sort(int[] values, int[] scratch, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = values[i];
+                int j = i - 1;
+                while (j >= from && comparator.applyAsInt(values[j], value) > 0) {
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                values[j + 1] = value;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(values, scratch, from, middle, comparator);
+        sort(values, scratch, middle, to, comparator);
+        if (comparator.applyAsInt(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.applyAsInt(scratch[left], scratch[right]) <= 0)) {
+                values[i] = scratch[left++];
+            } else {
+                values[i] = scratch[right++];
+            }
+        }
+    }
+
+    static int[] identity(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+}
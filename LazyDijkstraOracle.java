@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * Lazy query mode: no all-pairs precomputation, each source row is computed
+ * by Dijkstra on first use and kept in a {@link DistanceRowCache}.
+ */
+public final class LazyDijkstraOracle implements DistanceOracle {
+    private volatile AdjacencyGraph graph;
+    private final DistanceRowCache cache;
+
+    public LazyDijkstraOracle(AdjacencyGraph graph, long cacheBytes) {
+        this.graph = graph;
+        this.cache = new DistanceRowCache(cacheBytes);
+    }
+
+    @Override
+    public int vertexCount() {
+        return graph.vertexCount();
+    }
+
+    @Override
+    public int distance(int source, int destination) {
+        return row(source)[destination];
+    }
+
+    /** Walks back along tight arcs of the cached source row. */
+    @Override
+    public int[] path(int source, int destination) {
+        AdjacencyGraph current = graph;
+        int[] row = row(source);
+        if (row[destination] == INF) {
+            return new int[0];
+        }
+
+        int hops = 0;
+        int[] reversed = new int[16];
+        int v = destination;
+        reversed[hops++] = v;
+        while (v != source) {
+            int previous = -1;
+            for (int arc = current.firstArc(v); arc < current.endArc(v); arc++) {
+                int u = current.arcTarget(arc);
+                if (row[u] != INF && row[u] + current.arcWeight(arc) == row[v]) {
+                    previous = u;
+                    break;
+                }
+            }
+            if (previous < 0) {
+                return null;
+            }
+            if (hops == reversed.length) {
+                reversed = Arrays.copyOf(reversed, hops * 2);
+            }
+            reversed[hops++] = previous;
+            v = previous;
+        }
+
+        int[] route = new int[hops];
+        for (int i = 0; i < hops; i++) {
+            route[i] = reversed[hops - 1 - i];
+        }
+        return route;
+    }
+
+    @Override
+    public int[] distancesFrom(int source) {
+        return row(source);
+    }
+
+    /**
+     * The cached distance row of source. A row cached before cities were
+     * added is padded with {@link #INF} for them first, since an added city
+     * is unreachable until a path to it is added.
+     */
+    public int[] row(int source) {
+        AdjacencyGraph current = graph;
+        int[] row = cache.get(source);
+        if (row == null) {
+            row = current.distancesFrom(source);
+            cache.put(source, row);
+        } else if (row.length < current.vertexCount()) {
+            int known = row.length;
+            row = Arrays.copyOf(row, current.vertexCount());
+            Arrays.fill(row, known, row.length, INF);
+            cache.put(source, row);
+        }
+        return row;
+    }
+
+    /**
+     * Swaps in the edited graph and invalidates only the rows the changed
+     * edge (u, v) can affect.
+     */
+    public void edgeChanged(AdjacencyGraph updated, int u, int v, int oldWeight, int newWeight) {
+        graph = updated;
+        cache.edgeChanged(u, v, oldWeight, newWeight);
+    }
+
+    /**
+     * Swaps in a graph with one more, still isolated vertex. No existing
+     * distance changes, so cached rows are kept and {@link #row} pads them
+     * when they are next read.
+     */
+    public void vertexAdded(AdjacencyGraph updated) {
+        graph = updated;
+    }
+
+    public DistanceRowCache cache() {
+        return cache;
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to non-negative
+ * {@code int} values, with linear probing over parallel primitive arrays.
+ * Nothing is boxed, so it suits millions of vertex IDs or packed edge keys.
+ */
+public final class LongIntMap {
+    public static final int MISSING = -1;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int emptyKeyValue = MISSING;
+
+    public LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** The value for {@code key}, or {@link #MISSING}. */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Stores {@code value} unless {@code key} is already present, and
+     * returns the previous value or {@link #MISSING}.
+     */
+    public int putIfAbsent(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must be non-negative: " + value);
+        }
+        if (key == EMPTY) {
+            int previous = emptyKeyValue;
+            if (previous == MISSING) {
+                emptyKeyValue = value;
+                size++;
+            }
+            return previous;
+        }
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return MISSING;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        // MurmurHash3 finalizer; sequential IDs would otherwise cluster.
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
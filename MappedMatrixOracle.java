@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only {@link DistanceOracle} over a packed lower-triangular distance
+ * file mapped into memory. Entry (i, j) with j <= i lives at int index
+ * {@code i * (i + 1) / 2 + j}; the file is mapped in 1 GiB segments so it
+ * may exceed the 2 GiB limit of a single mapping.
+ */
+public final class MappedMatrixOracle implements DistanceOracle {
+    static final int HEADER_BYTES = 16;
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_INTS = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_INTS - 1;
+
+    private final int vertices;
+    private final IntBuffer[] segments;
+
+    private MappedMatrixOracle(int vertices, IntBuffer[] segments) {
+        this.vertices = vertices;
+        this.segments = segments;
+    }
+
+    static long triangleEntries(int vertices) {
+        return (long) vertices * (vertices + 1) / 2;
+    }
+
+    /** Maps a file whose header already declared the given vertex count. */
+    static MappedMatrixOracle map(Path file, int vertices) throws IOException {
+        long entries = triangleEntries(vertices);
+        IntBuffer[] segments = new IntBuffer[(int) ((entries + SEGMENT_INTS - 1) >>> SEGMENT_SHIFT)];
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES + 4 * entries) {
+                throw new IOException("Truncated distance file: " + file);
+            }
+            for (int s = 0; s < segments.length; s++) {
+                long first = s * SEGMENT_INTS;
+                long count = Math.min(SEGMENT_INTS, entries - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + 4 * first, 4 * count)
+                        .asIntBuffer();
+            }
+        }
+        return new MappedMatrixOracle(vertices, segments);
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertices;
+    }
+
+    @Override
+    public int distance(int source, int destination) {
+        int i = Math.max(source, destination);
+        int j = Math.min(source, destination);
+        long index = (long) i * (i + 1) / 2 + j;
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+}
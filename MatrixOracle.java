@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/**
+ * {@link DistanceOracle} over a fully computed all-pairs matrix.
+ */
+public final class MatrixOracle implements DistanceOracle {
+    private final int[][] shortests;
+
+    public MatrixOracle(int[][] shortests) {
+        this.shortests = shortests;
+    }
+
+    @Override
+    public int vertexCount() {
+        return shortests.length;
+    }
+
+    @Override
+    public int distance(int source, int destination) {
+        return shortests[source][destination];
+    }
+
+    @Override
+    public int[] distancesFrom(int source) {
+        return shortests[source];
+    }
+
+    /** Copies any oracle's answers into a heap matrix, e.g. to update a mapped one. */
+    public static MatrixOracle copyOf(DistanceOracle oracle) {
+        int vertices = oracle.vertexCount();
+        int[][] shortests = new int[vertices][vertices];
+        for (int i = 0; i < vertices; i++) {
+            for (int j = 0; j < vertices; j++) {
+                shortests[i][j] = oracle.distance(i, j);
+            }
+        }
+        return new MatrixOracle(shortests);
+    }
+
+    /** The same distances plus one vertex that nothing can reach yet. */
+    public MatrixOracle withVertex() {
+        int vertices = shortests.length;
+        int[][] grown = new int[vertices + 1][];
+        for (int i = 0; i < vertices; i++) {
+            grown[i] = Arrays.copyOf(shortests[i], vertices + 1);
+            grown[i][vertices] = INF;
+        }
+        grown[vertices] = new int[vertices + 1];
+        Arrays.fill(grown[vertices], INF);
+        grown[vertices][vertices] = 0;
+        return new MatrixOracle(grown);
+    }
+
+    /**
+     * Updates the matrix in place for a new undirected edge (u, v): every
+     * pair either keeps its distance or now routes through the edge, so
+     * one O(V^2) pass replaces a full O(V^3) rerun.
+     */
+    public void edgeAdded(int u, int v, int weight) {
+        int vertices = shortests.length;
+        int[] throughU = new int[vertices];
+        int[] throughV = new int[vertices];
+        for (int i = 0; i < vertices; i++) {
+            throughU[i] = shortests[i][u];
+            throughV[i] = shortests[i][v];
+        }
+        for (int i = 0; i < vertices; i++) {
+            int toU = throughU[i];
+            int toV = throughV[i];
+            if (toU == INF && toV == INF) {
+                continue;
+            }
+            int[] row = shortests[i];
+            for (int j = 0; j < vertices; j++) {
+                if (toU != INF && throughV[j] != INF) {
+                    row[j] = Math.min(row[j], toU + weight + throughV[j]);
+                }
+                if (toV != INF && throughU[j] != INF) {
+                    row[j] = Math.min(row[j], toV + weight + throughU[j]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of (key, vertex) pairs packed into primitive longs. Keys
+ * must be non-negative ints; stale entries are left in place and skipped by
+ * the caller, which keeps Dijkstra free of per-entry allocation.
+ */
+final class MinHeap {
+    private long[] entries = new long[64];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int key, int vertex) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        long entry = ((long) key << 32) | (vertex & 0xffffffffL);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (entries[parent] <= entry) {
+                break;
+            }
+            entries[i] = entries[parent];
+            i = parent;
+        }
+        entries[i] = entry;
+    }
+
+    int peekKey() {
+        return (int) (entries[0] >>> 32);
+    }
+
+    int peekVertex() {
+        return (int) entries[0];
+    }
+
+    void pop() {
+        long last = entries[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && entries[child + 1] < entries[child]) {
+                child++;
+            }
+            if (last <= entries[child]) {
+                break;
+            }
+            entries[i] = entries[child];
+            i = child;
+        }
+        entries[i] = last;
+    }
+}
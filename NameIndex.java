@@ -0,0 +1,189 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * City names by dense vertex index, plus an open-addressing hash table of
+ * vertex indices keyed by name, so both {@link #name(int)} and
+ * {@link #indexOf(String)} are O(1). Cities may share a name; lookups by
+ * name then return one of them.
+ *
+ * <p>Names are stored as UTF-8 in one contiguous {@code byte[]} with an
+ * offset and length per city instead of one {@code String} each; a String
+ * is only built when a name is displayed. Renames append the new bytes and
+ * the buffer is compacted once more than half of it is stale.
+ */
+public final class NameIndex {
+    public static final int MISSING = -1;
+
+    private static final int EMPTY = -1;
+    private static final int DELETED = -2;
+
+    private byte[] bytes;
+    private int used;
+    private int stale;
+    private int[] starts;
+    private int[] lengths;
+    private int[] hashes;
+    private int size;
+    private int[] table;
+    private int mask;
+    private int occupied;
+
+    public NameIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        bytes = new byte[capacity * 8];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        hashes = new int[capacity];
+        allocateTable(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int index) {
+        return new String(bytes, starts[index], lengths[index], StandardCharsets.UTF_8);
+    }
+
+    /** The index of a city called {@code name}, or {@link #MISSING}. */
+    public int indexOf(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key, 0, key.length);
+        for (int slot = slot(hash);; slot = (slot + 1) & mask) {
+            int index = table[slot];
+            if (index == EMPTY) {
+                return MISSING;
+            }
+            if (index != DELETED && hashes[index] == hash && Arrays.equals(bytes, starts[index],
+                    starts[index] + lengths[index], key, 0, key.length)) {
+                return index;
+            }
+        }
+    }
+
+    public void set(int index, String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        set(index, utf8, 0, utf8.length);
+    }
+
+    /**
+     * Names city {@code index} from UTF-8 bytes, which are copied; an index
+     * equal to {@link #size()} appends a city, and any other index renames one.
+     */
+    public void set(int index, byte[] utf8, int from, int length) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("City index " + index + " of " + size);
+        }
+        if (index < size) {
+            remove(index);
+            stale += lengths[index];
+        } else {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            size++;
+        }
+
+        lengths[index] = 0;
+        if (used + length > bytes.length) {
+            if (stale * 2 > used) {
+                compact();
+            }
+            if (used + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(2L * bytes.length, (long) used + length)));
+            }
+        }
+        System.arraycopy(utf8, from, bytes, used, length);
+        starts[index] = used;
+        lengths[index] = length;
+        hashes[index] = hash(utf8, from, length);
+        used += length;
+
+        if ((occupied + 1) * 2 > table.length) {
+            rehash();
+        } else {
+            insert(index);
+        }
+    }
+
+    /**
+     * Orders two cities by name without building Strings. Unsigned UTF-8
+     * byte order is code point order, which matches String order except
+     * that characters above U+FFFF sort after the rest of the BMP.
+     */
+    public int compare(int first, int second) {
+        return Arrays.compareUnsigned(bytes, starts[first], starts[first] + lengths[first], bytes,
+                starts[second], starts[second] + lengths[second]);
+    }
+
+    private void remove(int index) {
+        for (int slot = slot(hashes[index]);; slot = (slot + 1) & mask) {
+            if (table[slot] == index) {
+                table[slot] = DELETED;
+                return;
+            }
+        }
+    }
+
+    private void insert(int index) {
+        int slot = slot(hashes[index]);
+        while (table[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[slot] == EMPTY) {
+            occupied++;
+        }
+        table[slot] = index;
+    }
+
+    /** Rebuilds the table, dropping deleted slots and growing it if needed. */
+    private void rehash() {
+        allocateTable(Math.max(starts.length, size * 2));
+        for (int i = 0; i < size; i++) {
+            int slot = slot(hashes[i]);
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i;
+            occupied++;
+        }
+    }
+
+    /** Copies the live names to the front of the buffer in index order. */
+    private void compact() {
+        byte[] packed = new byte[bytes.length];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(bytes, starts[i], packed, position, lengths[i]);
+            starts[i] = position;
+            position += lengths[i];
+        }
+        bytes = packed;
+        used = position;
+        stale = 0;
+    }
+
+    private void allocateTable(int entries) {
+        table = new int[Integer.highestOneBit(Math.max(4, entries * 2 - 1)) << 1];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+        occupied = 0;
+    }
+
+    private static int hash(byte[] utf8, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + utf8[i];
+        }
+        return hash;
+    }
+
+    private int slot(int hash) {
+        hash *= 0x9e3779b9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
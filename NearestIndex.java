@@ -0,0 +1,98 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Per-source vertex lists sorted by distance, answering k-nearest queries
+ * in O(k) and within-radius queries in O(k + log V). Only vertex indices are
+ * stored; each query fetches the source's distance row from the oracle once
+ * and binary-searches against it, so a lazy engine is asked for one cached
+ * row rather than one distance per probe.
+ */
+public final class NearestIndex {
+    private final DistanceOracle oracle;
+    private final int[][] sorted;
+
+    public NearestIndex(DistanceOracle oracle) {
+        this.oracle = oracle;
+        this.sorted = new int[oracle.vertexCount()][];
+    }
+
+    /** Sorts every source row up front, spread over the common pool. */
+    public NearestIndex buildAll() {
+        IntStream.range(0, sorted.length).parallel()
+                .forEach(source -> sortedRow(source, oracle.distancesFrom(source)));
+        return this;
+    }
+
+    /** The k closest reachable vertices to source, nearest first. */
+    public int[] nearest(int source, int k) {
+        int[] distances = oracle.distancesFrom(source);
+        int[] row = sortedRow(source, distances);
+        int end = reachableEnd(distances, row);
+        // k + 1 leaves room for the source itself; written so k = MAX_VALUE cannot overflow.
+        return withoutSource(source, row, k >= end ? end : k + 1, k);
+    }
+
+    /** Every reachable vertex within radius of source, nearest first. */
+    public int[] withinRadius(int source, int radius) {
+        int[] distances = oracle.distancesFrom(source);
+        int[] row = sortedRow(source, distances);
+        int low = 0;
+        int high = row.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (distances[row[mid]] <= radius) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return withoutSource(source, row, low, Integer.MAX_VALUE);
+    }
+
+    private static int reachableEnd(int[] distances, int[] row) {
+        int low = 0;
+        int high = row.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (distances[row[mid]] < DistanceOracle.INF) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] withoutSource(int source, int[] row, int end, int limit) {
+        int[] result = new int[end];
+        int count = 0;
+        for (int i = 0; i < end && count < limit; i++) {
+            if (row[i] != source) {
+                result[count++] = row[i];
+            }
+        }
+        return count == end ? result : Arrays.copyOf(result, count);
+    }
+
+    private int[] sortedRow(int source, int[] distances) {
+        int[] row = sorted[source];
+        if (row != null) {
+            return row;
+        }
+
+        int vertices = sorted.length;
+        long[] keys = new long[vertices];
+        for (int v = 0; v < vertices; v++) {
+            keys[v] = ((long) distances[v] << 32) | v;
+        }
+        Arrays.sort(keys);
+
+        row = new int[vertices];
+        for (int i = 0; i < vertices; i++) {
+            row[i] = (int) keys[i];
+        }
+        sorted[source] = row;
+        return row;
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Parses a large {@code src weight dst} edge file in parallel. The file is
+ * memory-mapped in chunks cut at line boundaries; every chunk is parsed on
+ * the common fork-join pool into its own primitive buffers, which are
+ * concatenated in file order at the end. Vertex IDs are mapped to dense
+ * indices through {@link VertexIds}, which is only read here; unknown IDs
+ * are counted per chunk and reported once for the whole file.
+ */
+final class ParallelEdgeReader {
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int REPORTED_LINES = 5;
+
+    private ParallelEdgeReader() {
+    }
+
+    static EdgeList read(String fileName, VertexIds ids) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            Chunk[] chunks;
+            try {
+                chunks = IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(c -> parse(channel, bounds[c], bounds[c + 1], ids, fileName))
+                        .toArray(Chunk[]::new);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return merge(fileName, ids.size(), chunks);
+        }
+    }
+
+    /** Chunk start offsets, each just after a newline, plus the file size. */
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long target = Math.min(MAX_CHUNK_BYTES, Math.max(1 << 20, size / (parallelism * 4L) + 1));
+        int maxChunks = (int) Math.min(Integer.MAX_VALUE - 1, size / target + 2);
+
+        long[] bounds = new long[maxChunks + 1];
+        int count = 0;
+        long start = 0;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        while (start < size) {
+            bounds[count++] = start;
+            long next = start + target;
+            if (next >= size) {
+                break;
+            }
+            // Advance to the byte after the next newline.
+            outer:
+            while (next < size) {
+                probe.clear();
+                int read = channel.read(probe, next);
+                if (read <= 0) {
+                    next = size;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        next += i + 1;
+                        break outer;
+                    }
+                }
+                next += read;
+            }
+            start = next;
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static Chunk parse(FileChannel channel, long start, long end, VertexIds ids, String fileName) {
+        Chunk chunk = new Chunk();
+        MappedByteBuffer bytes;
+        try {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int limit = bytes.limit();
+        int position = 0;
+        long[] record = new long[3];
+        while (true) {
+            int field = 0;
+            int recordLine = chunk.lines;
+            while (field < 3) {
+                while (position < limit && bytes.get(position) >= 0 && bytes.get(position) <= ' ') {
+                    if (bytes.get(position) == '\n') {
+                        chunk.lines++;
+                    }
+                    position++;
+                }
+                if (position == limit) {
+                    break;
+                }
+                if (field == 0) {
+                    recordLine = chunk.lines;
+                }
+
+                boolean negative = bytes.get(position) == '-';
+                if (negative || bytes.get(position) == '+') {
+                    position++;
+                }
+                // Accumulated as a negative number so that Long.MIN_VALUE
+                // fits, exactly as ByteTokenReader.nextLong does.
+                long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+                long value = 0;
+                int digits = 0;
+                boolean overflow = false;
+                while (position < limit) {
+                    int digit = bytes.get(position) - '0';
+                    if (digit < 0 || digit > 9) {
+                        break;
+                    }
+                    overflow |= value < (bound + digit) / 10;
+                    value = value * 10 - digit;
+                    position++;
+                    digits++;
+                }
+                value = negative ? value : -value;
+                if (digits == 0 || overflow
+                        || (field == 1 && (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE))
+                        || (position < limit && !(bytes.get(position) >= 0 && bytes.get(position) <= ' '))) {
+                    throw new UncheckedIOException(new IOException(
+                            "Expected a number at " + fileName + ", byte " + (start + position)));
+                }
+                record[field++] = value;
+            }
+            if (field == 0) {
+                return chunk;
+            }
+            if (field < 3) {
+                throw new UncheckedIOException(new IOException(
+                        "Incomplete edge at " + fileName + ", byte " + (start + position)));
+            }
+            chunk.add(ids.indexOf(record[0]), (int) record[1], ids.indexOf(record[2]), recordLine);
+        }
+    }
+
+    private static EdgeList merge(String fileName, int vertices, Chunk[] chunks) {
+        int edges = 0;
+        int invalid = 0;
+        for (Chunk chunk : chunks) {
+            edges += chunk.count;
+            invalid += chunk.invalid;
+        }
+
+        int[] sources = new int[edges];
+        int[] weights = new int[edges];
+        int[] destinations = new int[edges];
+        int[] invalidLines = new int[Math.min(invalid, REPORTED_LINES)];
+        int offset = 0;
+        int reported = 0;
+        int lineOffset = 0;
+        for (Chunk chunk : chunks) {
+            System.arraycopy(chunk.sources, 0, sources, offset, chunk.count);
+            System.arraycopy(chunk.weights, 0, weights, offset, chunk.count);
+            System.arraycopy(chunk.destinations, 0, destinations, offset, chunk.count);
+            offset += chunk.count;
+            for (int i = 0; i < Math.min(chunk.invalid, REPORTED_LINES) && reported < invalidLines.length; i++) {
+                invalidLines[reported++] = lineOffset + chunk.invalidLines[i] + 1;
+            }
+            lineOffset += chunk.lines;
+        }
+
+        GraphLoader.reportInvalidEdges(fileName, invalid, invalidLines);
+        return new EdgeList(vertices, sources, weights, destinations);
+    }
+
+    /** Edges parsed from one chunk; line numbers are relative to its start. */
+    private static final class Chunk {
+        int[] sources = new int[1024];
+        int[] weights = new int[1024];
+        int[] destinations = new int[1024];
+        int count;
+        int invalid;
+        int[] invalidLines = new int[REPORTED_LINES];
+        int lines;
+
+        void add(int sourceVertex, int weight, int destinationVertex, int line) {
+            if (sourceVertex < 0 || destinationVertex < 0) {
+                if (invalid < REPORTED_LINES) {
+                    invalidLines[invalid] = line;
+                }
+                invalid++;
+                return;
+            }
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+                destinations = Arrays.copyOf(destinations, count * 2);
+            }
+            sources[count] = sourceVertex;
+            weights[count] = weight;
+            destinations[count] = destinationVertex;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Paths tab rows read straight from the {@link AppModel}'s edge list and
+ * {@link NameIndex}: one row per edge, so the row index is the edge index.
+ * Nothing is copied or boxed up front; cells are built only for the rows
+ * the table paints.
+ */
+public final class PathTableModel extends AbstractTableModel implements RowComparator {
+    private static final String[] COLUMNS = { "Source City", "Distance", "Destination City" };
+
+    private final AppModel app;
+
+    public PathTableModel(AppModel app) {
+        this.app = app;
+    }
+
+    @Override
+    public int getRowCount() {
+        return app.graph().edges().edgeCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        EdgeList edgeList = app.graph().edges();
+        switch (column) {
+            case 0:
+                return app.graph().names().name(edgeList.source(row));
+            case 1:
+                return edgeList.weight(row);
+            default:
+                return app.graph().names().name(edgeList.destination(row));
+        }
+    }
+
+    @Override
+    public int compareRows(int column, int firstRow, int secondRow) {
+        EdgeList edgeList = app.graph().edges();
+        NameIndex names = app.graph().names();
+        switch (column) {
+            case 0:
+                return names.compare(edgeList.source(firstRow), edgeList.source(secondRow));
+            case 1:
+                return Integer.compare(edgeList.weight(firstRow), edgeList.weight(secondRow));
+            default:
+                return names.compare(edgeList.destination(firstRow), edgeList.destination(secondRow));
+        }
+    }
+}
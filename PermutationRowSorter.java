@@ -0,0 +1,154 @@
+import java.util.Collections;
+import java.util.List;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+
+/**
+ * Sorts a table through an {@code int[]} permutation of model rows, asking
+ * the model to compare rows by index. Unlike
+ * {@link javax.swing.table.TableRowSorter} it reads no cell values, so
+ * sorting a million rows boxes nothing. Only the primary sort key is used;
+ * ties keep model order.
+ */
+public final class PermutationRowSorter<M extends TableModel & RowComparator> extends RowSorter<M> {
+    private final M model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    public PermutationRowSorter(M model) {
+        this.model = model;
+    }
+
+    @Override
+    public M getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        if (!model.isSortable(column)) {
+            return;
+        }
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        setSortKeys(List.of(new SortKey(column, order)));
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> primary = Collections.emptyList();
+        if (keys != null && !keys.isEmpty() && keys.get(0).getSortOrder() != SortOrder.UNSORTED) {
+            primary = List.of(keys.get(0));
+        }
+        if (!primary.equals(sortKeys)) {
+            sortKeys = primary;
+            fireSortOrderChanged();
+            sort();
+        }
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            checkRow(index);
+            return index;
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (modelToView == null) {
+            checkRow(index);
+            return index;
+        }
+        return modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        if (!sortKeys.isEmpty()) {
+            sortKeys = Collections.emptyList();
+            fireSortOrderChanged();
+        }
+        sort();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        resortIfSorted();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        resortIfSorted();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        resortIfSorted();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        resortIfSorted();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column) {
+            sort();
+        }
+    }
+
+    private void resortIfSorted() {
+        if (viewToModel != null) {
+            sort();
+        }
+    }
+
+    private void sort() {
+        int[] previous = viewToModel != null ? viewToModel : IntSorter.identity(model.getRowCount());
+        if (sortKeys.isEmpty()) {
+            viewToModel = null;
+            modelToView = null;
+        } else {
+            int rows = model.getRowCount();
+            int column = sortKeys.get(0).getColumn();
+            int direction = sortKeys.get(0).getSortOrder() == SortOrder.DESCENDING ? -1 : 1;
+            viewToModel = IntSorter.identity(rows);
+            IntSorter.sort(viewToModel, (first, second) -> direction * model.compareRows(column, first, second));
+            modelToView = new int[rows];
+            for (int view = 0; view < rows; view++) {
+                modelToView[viewToModel[view]] = view;
+            }
+        }
+        fireRowSorterChanged(previous);
+    }
+
+    private void checkRow(int index) {
+        if (index < 0 || index >= model.getRowCount()) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + model.getRowCount());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Static quadtree over a set of points, built once from coordinate arrays.
+ * The point ids are permuted so that every node owns one contiguous range
+ * of them, and each node keeps the tight bounds of its points, so range
+ * queries and nearest-point lookups skip whole subtrees; a lookup near a
+ * point costs O(log n) instead of a scan over every point.
+ */
+public final class PointQuadtree {
+    private static final int LEAF_SIZE = 8;
+    private static final int MAX_DEPTH = 24;
+
+    private final float[] xs;
+    private final float[] ys;
+    private final int[] points;
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+    private int[] start;
+    private int[] end;
+    private int[] firstChild;
+    private int nodes;
+
+    public PointQuadtree(float[] xs, float[] ys, int count) {
+        this.xs = xs;
+        this.ys = ys;
+        this.points = new int[count];
+        int capacity = Math.max(4, count / 2);
+        minX = new float[capacity];
+        minY = new float[capacity];
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+        start = new int[capacity];
+        end = new int[capacity];
+        firstChild = new int[capacity];
+
+        float x0 = Float.POSITIVE_INFINITY;
+        float y0 = Float.POSITIVE_INFINITY;
+        float x1 = Float.NEGATIVE_INFINITY;
+        float y1 = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            points[i] = i;
+            x0 = Math.min(x0, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            x1 = Math.max(x1, xs[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        build(allocate(1), 0, count, x0, y0, x1, y1, 0);
+    }
+
+    /** Calls {@code visitor} with every point inside the rectangle, bounds included. */
+    public void query(float x0, float y0, float x1, float y1, IntConsumer visitor) {
+        query(0, x0, y0, x1, y1, visitor);
+    }
+
+    /** The point closest to (x, y) no farther than {@code radius}, or -1. */
+    public int nearest(float x, float y, float radius) {
+        float[] best = { radius * radius };
+        int[] found = { -1 };
+        nearest(0, x, y, best, found);
+        return found[0];
+    }
+
+    private void query(int node, float x0, float y0, float x1, float y1, IntConsumer visitor) {
+        if (minX[node] > x1 || maxX[node] < x0 || minY[node] > y1 || maxY[node] < y0) {
+            return;
+        }
+        if (firstChild[node] < 0) {
+            for (int i = start[node]; i < end[node]; i++) {
+                int point = points[i];
+                if (xs[point] >= x0 && xs[point] <= x1 && ys[point] >= y0 && ys[point] <= y1) {
+                    visitor.accept(point);
+                }
+            }
+            return;
+        }
+        for (int child = firstChild[node]; child < firstChild[node] + 4; child++) {
+            query(child, x0, y0, x1, y1, visitor);
+        }
+    }
+
+    private void nearest(int node, float x, float y, float[] best, int[] found) {
+        if (start[node] == end[node]) {
+            return;
+        }
+        float dx = Math.max(0, Math.max(minX[node] - x, x - maxX[node]));
+        float dy = Math.max(0, Math.max(minY[node] - y, y - maxY[node]));
+        if (dx * dx + dy * dy > best[0]) {
+            return;
+        }
+        if (firstChild[node] < 0) {
+            for (int i = start[node]; i < end[node]; i++) {
+                int point = points[i];
+                float px = xs[point] - x;
+                float py = ys[point] - y;
+                float distance = px * px + py * py;
+                if (distance <= best[0]) {
+                    best[0] = distance;
+                    found[0] = point;
+                }
+            }
+            return;
+        }
+        for (int child = firstChild[node]; child < firstChild[node] + 4; child++) {
+            nearest(child, x, y, best, found);
+        }
+    }
+
+    /**
+     * Fills node {@code node} with the points in {@code [from, to)}, which
+     * lie in the cell (x0, y0)-(x1, y1), and splits it at the cell centre
+     * until a node holds at most {@link #LEAF_SIZE} points.
+     */
+    private void build(int node, int from, int to, float x0, float y0, float x1, float y1, int depth) {
+        start[node] = from;
+        end[node] = to;
+        firstChild[node] = -1;
+        minX[node] = Float.POSITIVE_INFINITY;
+        minY[node] = Float.POSITIVE_INFINITY;
+        maxX[node] = Float.NEGATIVE_INFINITY;
+        maxY[node] = Float.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            minX[node] = Math.min(minX[node], xs[points[i]]);
+            minY[node] = Math.min(minY[node], ys[points[i]]);
+            maxX[node] = Math.max(maxX[node], xs[points[i]]);
+            maxY[node] = Math.max(maxY[node], ys[points[i]]);
+        }
+        if (to - from <= LEAF_SIZE || depth == MAX_DEPTH) {
+            return;
+        }
+
+        float middleX = (x0 + x1) / 2;
+        float middleY = (y0 + y1) / 2;
+        int splitX = partition(from, to, middleX, true);
+        int splitLow = partition(from, splitX, middleY, false);
+        int splitHigh = partition(splitX, to, middleY, false);
+
+        int child = allocate(4);
+        firstChild[node] = child;
+        build(child, from, splitLow, x0, y0, middleX, middleY, depth + 1);
+        build(child + 1, splitLow, splitX, x0, middleY, middleX, y1, depth + 1);
+        build(child + 2, splitX, splitHigh, middleX, y0, x1, middleY, depth + 1);
+        build(child + 3, splitHigh, to, middleX, middleY, x1, y1, depth + 1);
+    }
+
+    /** Moves the points below {@code middle} on one axis to the front of the range. */
+    private int partition(int from, int to, float middle, boolean onX) {
+        int low = from;
+        for (int i = from; i < to; i++) {
+            int point = points[i];
+            if ((onX ? xs[point] : ys[point]) < middle) {
+                points[i] = points[low];
+                points[low++] = point;
+            }
+        }
+        return low;
+    }
+
+    private int allocate(int count) {
+        if (nodes + count > start.length) {
+            int capacity = Math.max(start.length * 2, nodes + count);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+        }
+        int first = nodes;
+        nodes += count;
+        return first;
+    }
+}
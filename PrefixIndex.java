@@ -0,0 +1,105 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Case-insensitive prefix search over the city names of an {@link AppModel}.
+ * Cities are kept in an {@code int[]} sorted by lower-cased UTF-8 name, so
+ * the cities starting with a prefix form one contiguous range found by two
+ * binary searches, O(|prefix| log V), with nothing built per match.
+ *
+ * <p>The sorted order is rebuilt on the first search after
+ * {@link #invalidate()}, which callers make after names change.
+ */
+public final class PrefixIndex {
+    private final AppModel app;
+    private int[] order = new int[0];
+    private byte[] keys = new byte[0];
+    private int[] starts = new int[0];
+    private int[] lengths = new int[0];
+    private boolean stale = true;
+
+    public PrefixIndex(AppModel app) {
+        this.app = app;
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    /** Positions {@code [from, to)} of the cities whose name starts with {@code prefix}, in name order. */
+    public Matches find(String prefix) {
+        if (stale) {
+            rebuild();
+        }
+        byte[] key = fold(prefix);
+        return new Matches(bound(key, 0), bound(key, 1));
+    }
+
+    /** The city at a position of the sorted order. */
+    public int cityAt(int position) {
+        return order[position];
+    }
+
+    /** A contiguous run of the sorted order. */
+    public static final class Matches {
+        public final int from;
+        public final int to;
+
+        Matches(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /** The first position whose key, cut to the prefix length, compares at least {@code threshold}. */
+    private int bound(byte[] prefix, int threshold) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(order[middle], prefix) < threshold) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int comparePrefix(int city, byte[] prefix) {
+        int length = Math.min(lengths[city], prefix.length);
+        return Arrays.compareUnsigned(keys, starts[city], starts[city] + length, prefix, 0, prefix.length);
+    }
+
+    private void rebuild() {
+        NameIndex names = app.graph().names();
+        int vertices = app.graph().vertexCount();
+        starts = new int[vertices];
+        lengths = new int[vertices];
+        keys = new byte[Math.max(16, keys.length)];
+        int used = 0;
+        for (int city = 0; city < vertices; city++) {
+            byte[] key = fold(names.name(city));
+            if (used + key.length > keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(keys.length * 2, used + key.length));
+            }
+            System.arraycopy(key, 0, keys, used, key.length);
+            starts[city] = used;
+            lengths[city] = key.length;
+            used += key.length;
+        }
+        order = IntSorter.identity(vertices);
+        IntSorter.sort(order, (first, second) -> Arrays.compareUnsigned(keys, starts[first],
+                starts[first] + lengths[first], keys, starts[second], starts[second] + lengths[second]));
+        stale = false;
+    }
+
+    private static byte[] fold(String text) {
+        return text.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Receives progress from long-running engine work, called from the worker
+ * thread.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    void progress(int done, int total);
+}
@@ -0,0 +1,100 @@
+/**
+ * Answers queries while the real engine is still being built. Until
+ * {@link #complete(DistanceOracle)} is called every lookup runs an
+ * on-demand Dijkstra through a {@link LazyDijkstraOracle}; afterwards
+ * lookups go straight to the finished engine.
+ */
+public final class ProgressiveOracle implements DistanceOracle {
+    private final LazyDijkstraOracle fallback;
+    private volatile DistanceOracle complete;
+
+    public ProgressiveOracle(LazyDijkstraOracle fallback) {
+        this.fallback = fallback;
+    }
+
+    public void complete(DistanceOracle engine) {
+        complete = engine;
+    }
+
+    public boolean isComplete() {
+        return complete != null;
+    }
+
+    public boolean isFallback(DistanceOracle oracle) {
+        return oracle == fallback;
+    }
+
+    /**
+     * The oracle that answers right now. Callers that need to know which
+     * mode served an answer should query this snapshot directly.
+     */
+    public DistanceOracle current() {
+        DistanceOracle engine = complete;
+        return engine != null ? engine : fallback;
+    }
+
+    /**
+     * Follows a new isolated vertex. A heap matrix grows by one row and
+     * column; a lazy engine keeps its cached rows, as no distance changes.
+     * Returns false when the finished engine cannot absorb the change; it
+     * is then dropped, queries go back to the fallback and the caller
+     * should build a new one. A mapped matrix is dropped too, since copying
+     * it to the heap is O(V^2) and belongs on a background thread.
+     */
+    public boolean vertexAdded(AdjacencyGraph updated) {
+        fallback.vertexAdded(updated);
+        DistanceOracle engine = complete;
+        if (engine instanceof MatrixOracle) {
+            complete = ((MatrixOracle) engine).withVertex();
+        } else if (engine instanceof LazyDijkstraOracle) {
+            ((LazyDijkstraOracle) engine).vertexAdded(updated);
+        } else {
+            complete = null;
+        }
+        return complete != null;
+    }
+
+    /**
+     * Follows a new edge (u, v): lazy engines, the fallback included, drop
+     * only the cached rows the edge can change, and a heap matrix is
+     * relaxed in O(V^2). Other engines are dropped as in
+     * {@link #vertexAdded(AdjacencyGraph)}.
+     */
+    public boolean edgeAdded(AdjacencyGraph updated, int u, int v, int weight) {
+        fallback.edgeChanged(updated, u, v, INF, weight);
+        DistanceOracle engine = complete;
+        if (engine instanceof MatrixOracle) {
+            ((MatrixOracle) engine).edgeAdded(u, v, weight);
+        } else if (engine instanceof LazyDijkstraOracle) {
+            ((LazyDijkstraOracle) engine).edgeChanged(updated, u, v, INF, weight);
+        } else {
+            complete = null;
+        }
+        return complete != null;
+    }
+
+    @Override
+    public int vertexCount() {
+        return fallback.vertexCount();
+    }
+
+    @Override
+    public int distance(int source, int destination) {
+        return current().distance(source, destination);
+    }
+
+    @Override
+    public int[] distancesFrom(int source) {
+        return current().distancesFrom(source);
+    }
+
+    @Override
+    public int[] path(int source, int destination) {
+        return current().path(source, destination);
+    }
+
+    @Override
+    public int stretch() {
+        return current().stretch();
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * A table model that can order its rows by model index, so a
+ * {@link PermutationRowSorter} sorts without reading boxed cell values.
+ */
+public interface RowComparator {
+    int compareRows(int column, int firstRow, int secondRow);
+
+    default boolean isSortable(int column) {
+        return true;
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Thorup-Zwick approximate distance oracle. For a stretch parameter k the
+ * vertices are sampled into nested sets A0 = V, A1, ..., A(k-1); each
+ * vertex stores its nearest member of every set and a bunch of nearby
+ * sample vertices. That takes expected O(k n^(1+1/k)) space instead of
+ * n^2, and every answer d' satisfies d <= d' <= (2k - 1) d.
+ */
+public final class ThorupZwickOracle implements DistanceOracle {
+    private final int k;
+    private final int[][] pivot;
+    private final int[][] pivotDistance;
+    private final int[] bunchOffsets;
+    private final int[] bunchVertices;
+    private final int[] bunchDistances;
+
+    private ThorupZwickOracle(int k, int[][] pivot, int[][] pivotDistance, int[] bunchOffsets,
+            int[] bunchVertices, int[] bunchDistances) {
+        this.k = k;
+        this.pivot = pivot;
+        this.pivotDistance = pivotDistance;
+        this.bunchOffsets = bunchOffsets;
+        this.bunchVertices = bunchVertices;
+        this.bunchDistances = bunchDistances;
+    }
+
+    public static ThorupZwickOracle build(AdjacencyGraph graph, int k, long seed) throws InterruptedException {
+        if (k < 1) {
+            throw new IllegalArgumentException("Stretch parameter k must be at least 1");
+        }
+        int vertices = graph.vertexCount();
+        int[] level = sampleLevels(vertices, k, new Random(seed));
+
+        int[][] pivot = new int[k][];
+        int[][] pivotDistance = new int[k][];
+        for (int i = 0; i < k; i++) {
+            pivot[i] = new int[vertices];
+            pivotDistance[i] = new int[vertices];
+            nearestSample(graph, level, i, pivot[i], pivotDistance[i]);
+        }
+
+        int[][] bunch = new int[vertices][];
+        int[][] bunchDistance = new int[vertices][];
+        int[] bunchSize = new int[vertices];
+        for (int v = 0; v < vertices; v++) {
+            bunch[v] = new int[4];
+            bunchDistance[v] = new int[4];
+        }
+
+        int[] distance = new int[vertices];
+        int[] touched = new int[vertices];
+        Arrays.fill(distance, INF);
+        MinHeap heap = new MinHeap();
+
+        // The cluster of w holds every v that is strictly closer to w than to
+        // the next sample level; w then belongs to the bunch of each such v.
+        for (int w = 0; w < vertices; w++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Thorup-Zwick build cancelled at cluster " + w);
+            }
+            int[] bound = level[w] + 1 < k ? pivotDistance[level[w] + 1] : null;
+            int touchedCount = 0;
+            distance[w] = 0;
+            touched[touchedCount++] = w;
+            heap.clear();
+            heap.push(0, w);
+
+            while (!heap.isEmpty()) {
+                int d = heap.peekKey();
+                int u = heap.peekVertex();
+                heap.pop();
+                if (d > distance[u]) {
+                    continue;
+                }
+                if (bunchSize[u] == bunch[u].length) {
+                    bunch[u] = Arrays.copyOf(bunch[u], bunchSize[u] * 2);
+                    bunchDistance[u] = Arrays.copyOf(bunchDistance[u], bunchSize[u] * 2);
+                }
+                bunch[u][bunchSize[u]] = w;
+                bunchDistance[u][bunchSize[u]] = d;
+                bunchSize[u]++;
+
+                for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                    int v = graph.arcTarget(arc);
+                    int candidate = d + graph.arcWeight(arc);
+                    if (candidate < distance[v] && (bound == null || candidate < bound[v])) {
+                        if (distance[v] == INF) {
+                            touched[touchedCount++] = v;
+                        }
+                        distance[v] = candidate;
+                        heap.push(candidate, v);
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                distance[touched[i]] = INF;
+            }
+        }
+
+        // Clusters are grown in increasing w, so every bunch is already
+        // sorted by vertex and can be searched with a binary search.
+        int[] bunchOffsets = new int[vertices + 1];
+        for (int v = 0; v < vertices; v++) {
+            bunchOffsets[v + 1] = bunchOffsets[v] + bunchSize[v];
+        }
+        int[] bunchVertices = new int[bunchOffsets[vertices]];
+        int[] bunchDistances = new int[bunchOffsets[vertices]];
+        for (int v = 0; v < vertices; v++) {
+            System.arraycopy(bunch[v], 0, bunchVertices, bunchOffsets[v], bunchSize[v]);
+            System.arraycopy(bunchDistance[v], 0, bunchDistances, bunchOffsets[v], bunchSize[v]);
+        }
+        return new ThorupZwickOracle(k, pivot, pivotDistance, bunchOffsets, bunchVertices, bunchDistances);
+    }
+
+    /** Bytes a full V x V int matrix would need. */
+    public static long matrixBytes(int vertices) {
+        return 4L * vertices * vertices;
+    }
+
+    @Override
+    public int vertexCount() {
+        return bunchOffsets.length - 1;
+    }
+
+    @Override
+    public int distance(int source, int destination) {
+        int a = source;
+        int b = destination;
+        int w = source;
+        int i = 0;
+
+        while (true) {
+            int fromBunch = bunchDistance(b, w);
+            if (fromBunch != INF) {
+                return pivotDistance[i][a] + fromBunch;
+            }
+            if (++i == k) {
+                return INF;
+            }
+            int swap = a;
+            a = b;
+            b = swap;
+            w = pivot[i][a];
+            if (w < 0) {
+                return INF;
+            }
+        }
+    }
+
+    @Override
+    public int stretch() {
+        return 2 * k - 1;
+    }
+
+    public int bunchEntries() {
+        return bunchVertices.length;
+    }
+
+    private int bunchDistance(int vertex, int member) {
+        int index = Arrays.binarySearch(bunchVertices, bunchOffsets[vertex], bunchOffsets[vertex + 1], member);
+        return index >= 0 ? bunchDistances[index] : INF;
+    }
+
+    /**
+     * Level of every vertex: v belongs to A0 ... A(level[v]). Each level keeps
+     * a vertex of the one below with probability n^(-1/k), and the top level
+     * is never left empty.
+     */
+    private static int[] sampleLevels(int vertices, int k, Random random) {
+        int[] level = new int[vertices];
+        double keep = Math.pow(Math.max(vertices, 1), -1.0 / k);
+        boolean topFilled = false;
+
+        for (int v = 0; v < vertices; v++) {
+            while (level[v] < k - 1 && random.nextDouble() < keep) {
+                level[v]++;
+            }
+            topFilled |= level[v] == k - 1;
+        }
+        if (!topFilled && vertices > 0) {
+            level[random.nextInt(vertices)] = k - 1;
+        }
+        return level;
+    }
+
+    /** Multi-source Dijkstra from every vertex of A(i). */
+    private static void nearestSample(AdjacencyGraph graph, int[] level, int i, int[] pivot, int[] distance) {
+        Arrays.fill(pivot, -1);
+        Arrays.fill(distance, INF);
+        MinHeap heap = new MinHeap();
+
+        for (int v = 0; v < level.length; v++) {
+            if (level[v] >= i) {
+                pivot[v] = v;
+                distance[v] = 0;
+                heap.push(0, v);
+            }
+        }
+        while (!heap.isEmpty()) {
+            int d = heap.peekKey();
+            int u = heap.peekVertex();
+            heap.pop();
+            if (d > distance[u]) {
+                continue;
+            }
+            for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++) {
+                int v = graph.arcTarget(arc);
+                int candidate = d + graph.arcWeight(arc);
+                if (candidate < distance[v]) {
+                    distance[v] = candidate;
+                    pivot[v] = pivot[u];
+                    heap.push(candidate, v);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+/**
+ * Maps external city IDs, which may be sparse, non-contiguous or 64-bit,
+ * to dense indices 0..n-1 in order of first appearance, and back. Every
+ * matrix, edge list and engine works on the dense indices; only files and
+ * tables see the external IDs.
+ */
+public final class VertexIds {
+    private final LongIntMap indexById;
+    private long[] externalIds;
+    private int size;
+
+    public VertexIds(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        indexById = new LongIntMap(capacity);
+        externalIds = new long[capacity];
+    }
+
+    /** The dense index of {@code externalId}, assigning the next one if it is new. */
+    public int add(long externalId) {
+        int existing = indexById.putIfAbsent(externalId, size);
+        if (existing != LongIntMap.MISSING) {
+            return existing;
+        }
+        if (size == externalIds.length) {
+            externalIds = Arrays.copyOf(externalIds, size * 2);
+        }
+        externalIds[size] = externalId;
+        return size++;
+    }
+
+    /** The dense index of {@code externalId}, or -1 if it is unknown. */
+    public int indexOf(long externalId) {
+        return indexById.get(externalId);
+    }
+
+    public long externalId(int index) {
+        return externalIds[index];
+    }
+
+    /** One more than the largest external ID, for numbering a new city. */
+    public long nextId() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, externalIds[i]);
+        }
+        return max + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+}